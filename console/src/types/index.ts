@@ -19,6 +19,7 @@ export interface EquipmentGroupSpec {
 
 export interface PostGroupStatus {
   equipmentCount: number;
+  deletedEquipmentCount?: number;
 }
 
 export interface EquipmentSpec {
@@ -30,8 +31,22 @@ export interface EquipmentSpec {
   groupName: string;
 }
 
+export interface CoverStatus {
+  source: string;
+  width?: number;
+  height?: number;
+  bytes?: number;
+  dominantColor?: string;
+  blurhash?: string;
+}
+
+export interface EquipmentStatus {
+  cover?: CoverStatus;
+}
+
 export interface Equipment {
   spec: EquipmentSpec;
+  status?: EquipmentStatus;
   apiVersion: string;
   kind: string;
   metadata: Metadata;
@@ -0,0 +1,50 @@
+package run.halo.equipments;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import run.halo.equipments.benchmark.DatasetState;
+import run.halo.equipments.finders.impl.DefaultOrder;
+import run.halo.equipments.finders.impl.EquipmentFInderImpl;
+
+/**
+ * Benchmarks of sorting a whole dataset with the {@link EquipmentSorter} comparators and the
+ * default finder order, either by its comparator or by the sort keys of {@link DefaultOrder}.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EquipmentSorterBenchmark extends DatasetState {
+
+    @Param({"DISPLAY_NAME", "CREATE_TIME", "DEFAULT", "DEFAULT_KEYS"})
+    public String sorter;
+
+    private Comparator<Equipment> comparator;
+
+    @Setup
+    public void prepareComparator() {
+        comparator = sorter.startsWith("DEFAULT")
+            ? EquipmentFInderImpl.defaultEquipmentComparator()
+            : EquipmentSorter.from(EquipmentSorter.valueOf(sorter), true);
+    }
+
+    @Benchmark
+    public List<Equipment> sort() {
+        List<Equipment> sorted = new ArrayList<>(equipments);
+        if ("DEFAULT_KEYS".equals(sorter)) {
+            DefaultOrder.sortEquipments(sorted);
+        } else {
+            sorted.sort(comparator);
+        }
+        return sorted;
+    }
+}
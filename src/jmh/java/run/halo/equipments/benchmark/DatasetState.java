@@ -0,0 +1,49 @@
+package run.halo.equipments.benchmark;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+
+/**
+ * Base state of the benchmarks, a client seeded with a dataset of every size.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+
+    @Param({"1000", "10000", "100000"})
+    public int equipmentCount;
+
+    @Param({"10", "500"})
+    public int groupCount;
+
+    public InMemoryExtensionClient client;
+
+    public List<EquipmentGroup> groups;
+
+    public List<Equipment> equipments;
+
+    @Setup
+    public void seed() {
+        groups = Datasets.groups(groupCount);
+        equipments = Datasets.equipments(equipmentCount, groupCount);
+        client = new InMemoryExtensionClient();
+        client.seed(groups);
+        client.seed(equipments);
+    }
+
+    /**
+     * Gets the name of a group in the middle of the dataset.
+     *
+     * @return group name
+     */
+    public String someGroup() {
+        return "group-" + groupCount / 2;
+    }
+}
@@ -0,0 +1,84 @@
+package run.halo.equipments.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import run.halo.app.extension.Metadata;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+
+/**
+ * Seeded synthetic datasets, the same parameters always produce the same data.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public enum Datasets {
+    ;
+
+    private static final long SEED = 20231017L;
+
+    private static final Instant EPOCH = Instant.parse("2022-01-01T00:00:00Z");
+
+    private static final String[] WORDS = {"键盘", "鼠标", "显示器", "耳机", "相机", "镜头",
+        "keyboard", "mouse", "monitor", "macbook", "iphone", "kindle", "switch", "音箱",
+        "路由器", "硬盘", "nas", "台灯", "椅子", "desk"};
+
+    /**
+     * Creates groups named <code>group-0</code> to <code>group-{count - 1}</code>.
+     *
+     * @param count groups count
+     * @return groups
+     */
+    public static List<EquipmentGroup> groups(int count) {
+        Random random = new Random(SEED);
+        List<EquipmentGroup> groups = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var spec = new EquipmentGroup.EquipmentGroupSpec();
+            spec.setDisplayName(WORDS[random.nextInt(WORDS.length)] + " " + i);
+            spec.setPriority(random.nextInt(count));
+            var group = new EquipmentGroup();
+            group.setMetadata(metadata("group-" + i, random));
+            group.setSpec(spec);
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Creates equipments spread randomly across the given number of groups.
+     *
+     * @param count equipments count
+     * @param groups groups count
+     * @return equipments
+     */
+    public static List<Equipment> equipments(int count, int groups) {
+        Random random = new Random(SEED + count);
+        List<Equipment> equipments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            var spec = new Equipment.EquipmentSpec();
+            spec.setDisplayName(word + " " + Integer.toString(random.nextInt(100_000), 36));
+            spec.setDescription("我的" + WORDS[random.nextInt(WORDS.length)] + "，用了 "
+                + random.nextInt(10) + " 年");
+            spec.setUrl("https://example.com/" + word + "/" + i);
+            spec.setCover("/upload/equipments/" + i + ".jpg");
+            spec.setPriority(random.nextInt(10));
+            spec.setGroupName("group-" + random.nextInt(groups));
+            var equipment = new Equipment();
+            equipment.setMetadata(metadata("equipment-" + i, random));
+            equipment.setSpec(spec);
+            equipments.add(equipment);
+        }
+        return equipments;
+    }
+
+    private static Metadata metadata(String name, Random random) {
+        var metadata = new Metadata();
+        metadata.setName(name);
+        metadata.setVersion(0L);
+        metadata.setCreationTimestamp(EPOCH.plusSeconds(random.nextInt(60 * 60 * 24 * 365)));
+        return metadata;
+    }
+}
@@ -0,0 +1,144 @@
+package run.halo.equipments.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.GroupVersionKind;
+import run.halo.app.extension.ListResult;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.app.extension.Unstructured;
+import run.halo.app.extension.Watcher;
+import run.halo.equipments.index.ListResults;
+
+/**
+ * A {@link ReactiveExtensionClient} keeping extensions in memory, so that benchmarks measure
+ * the plugin rather than the store.
+ *
+ * <p>Lists are filtered and sorted on every call like the real client does, and watchers are
+ * notified synchronously.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public class InMemoryExtensionClient implements ReactiveExtensionClient {
+
+    private final Map<Class<?>, Map<String, Extension>> store = new ConcurrentHashMap<>();
+
+    private final List<Watcher> watchers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public <E extends Extension> Flux<E> list(Class<E> type, Predicate<E> predicate,
+        Comparator<E> comparator) {
+        return Flux.defer(() -> Flux.fromIterable(select(type, predicate, comparator)));
+    }
+
+    @Override
+    public <E extends Extension> Mono<ListResult<E>> list(Class<E> type,
+        Predicate<E> predicate, Comparator<E> comparator, int page, int size) {
+        return Mono.fromSupplier(() -> ListResults.page(select(type, predicate, comparator),
+            page, size, Function.identity()));
+    }
+
+    @Override
+    public <E extends Extension> Mono<E> fetch(Class<E> type, String name) {
+        return Mono.fromSupplier(() -> type.cast(bucket(type).get(name)));
+    }
+
+    @Override
+    public Mono<Unstructured> fetch(GroupVersionKind gvk, String name) {
+        return Flux.fromIterable(store.values())
+            .flatMapIterable(Map::values)
+            .filter(extension -> gvk.equals(extension.groupVersionKind())
+                && name.equals(extension.getMetadata().getName()))
+            .next()
+            .map(extension -> Unstructured.OBJECT_MAPPER.convertValue(extension,
+                Unstructured.class));
+    }
+
+    @Override
+    public <E extends Extension> Mono<E> get(Class<E> type, String name) {
+        return fetch(type, name).switchIfEmpty(Mono.error(
+            () -> new IllegalArgumentException(type.getSimpleName() + " " + name
+                + " not found.")));
+    }
+
+    @Override
+    public <E extends Extension> Mono<E> create(E extension) {
+        return Mono.fromSupplier(() -> {
+            var metadata = extension.getMetadata();
+            if (metadata.getCreationTimestamp() == null) {
+                metadata.setCreationTimestamp(Instant.now());
+            }
+            metadata.setVersion(0L);
+            bucket(extension.getClass()).put(metadata.getName(), extension);
+            watchers.forEach(watcher -> watcher.onAdd(extension));
+            return extension;
+        });
+    }
+
+    @Override
+    public <E extends Extension> Mono<E> update(E extension) {
+        return Mono.fromSupplier(() -> {
+            var metadata = extension.getMetadata();
+            metadata.setVersion(metadata.getVersion() == null ? 0L
+                : metadata.getVersion() + 1);
+            Extension old = bucket(extension.getClass()).put(metadata.getName(), extension);
+            watchers.forEach(watcher -> watcher.onUpdate(old, extension));
+            return extension;
+        });
+    }
+
+    @Override
+    public <E extends Extension> Mono<E> delete(E extension) {
+        return Mono.fromSupplier(() -> {
+            bucket(extension.getClass()).remove(extension.getMetadata().getName());
+            watchers.forEach(watcher -> watcher.onDelete(extension));
+            return extension;
+        });
+    }
+
+    @Override
+    public void watch(Watcher watcher) {
+        watchers.add(watcher);
+        watcher.registerDisposeHook(() -> watchers.remove(watcher));
+    }
+
+    /**
+     * Stores extensions without notifying watchers, used to seed datasets.
+     *
+     * @param extensions extensions
+     */
+    public void seed(Iterable<? extends Extension> extensions) {
+        for (Extension extension : extensions) {
+            bucket(extension.getClass()).put(extension.getMetadata().getName(), extension);
+        }
+    }
+
+    private <E extends Extension> List<E> select(Class<E> type, Predicate<E> predicate,
+        Comparator<E> comparator) {
+        List<E> selected = new ArrayList<>();
+        for (Extension extension : bucket(type).values()) {
+            E item = type.cast(extension);
+            if (predicate == null || predicate.test(item)) {
+                selected.add(item);
+            }
+        }
+        if (comparator != null) {
+            selected.sort(comparator);
+        }
+        return selected;
+    }
+
+    private Map<String, Extension> bucket(Class<?> type) {
+        return store.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,79 @@
+package run.halo.equipments.finders.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import run.halo.app.extension.ListResult;
+import run.halo.equipments.benchmark.DatasetState;
+import run.halo.equipments.index.EquipmentIndex;
+import run.halo.equipments.index.EquipmentStore;
+import run.halo.equipments.metrics.EquipmentMetrics;
+import run.halo.equipments.vo.EquipmentGroupVo;
+import run.halo.equipments.vo.EquipmentVo;
+
+/**
+ * Benchmarks of the theme finder, with and without {@link EquipmentIndex}.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EquipmentFinderBenchmark extends DatasetState {
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private EquipmentStore equipmentStore;
+
+    private EquipmentFInderImpl finder;
+
+    private String group;
+
+    @Setup
+    public void prepareFinder() {
+        equipmentStore = new EquipmentStore(client);
+        EquipmentIndex equipmentIndex = new EquipmentIndex(equipmentStore);
+        if (indexed) {
+            equipmentStore.start();
+        }
+        finder = new EquipmentFInderImpl(client, equipmentIndex, new EquipmentMetrics());
+        group = someGroup();
+    }
+
+    @TearDown
+    public void stopIndex() {
+        equipmentStore.stop();
+    }
+
+    @Benchmark
+    public List<EquipmentGroupVo> groupBy() {
+        return finder.groupBy().collectList().block();
+    }
+
+    @Benchmark
+    public List<EquipmentGroupVo> groupByLimit() {
+        return finder.groupBy(4).collectList().block();
+    }
+
+    @Benchmark
+    public List<EquipmentVo> latest() {
+        return finder.latest(4).collectList().block();
+    }
+
+    @Benchmark
+    public List<EquipmentVo> listBy() {
+        return finder.listBy(group).collectList().block();
+    }
+
+    @Benchmark
+    public ListResult<EquipmentVo> pageEquipment() {
+        return finder.list(2, 20, group).block();
+    }
+}
@@ -0,0 +1,40 @@
+package run.halo.equipments.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.springframework.util.LinkedMultiValueMap;
+import run.halo.app.extension.ListResult;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.EquipmentQuery;
+import run.halo.equipments.benchmark.DatasetState;
+import run.halo.equipments.metrics.EquipmentMetrics;
+
+/**
+ * Benchmarks of the console group listing.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EquipmentGroupServiceBenchmark extends DatasetState {
+
+    private EquipmentGroupServiceImpl service;
+
+    private EquipmentQuery query;
+
+    @Setup
+    public void prepareService() {
+        service = new EquipmentGroupServiceImpl(client, new EquipmentMetrics());
+        query = new EquipmentQuery(new LinkedMultiValueMap<>());
+    }
+
+    @Benchmark
+    public ListResult<EquipmentGroup> listEquipmentGroup() {
+        return service.listEquipmentGroup(query).block();
+    }
+}
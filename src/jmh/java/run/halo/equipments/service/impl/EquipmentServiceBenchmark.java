@@ -0,0 +1,92 @@
+package run.halo.equipments.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import run.halo.app.extension.ListResult;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentQuery;
+import run.halo.equipments.benchmark.DatasetState;
+import run.halo.equipments.index.EquipmentQueryPlanner;
+import run.halo.equipments.index.EquipmentSearchIndex;
+import run.halo.equipments.index.EquipmentSortIndex;
+import run.halo.equipments.index.EquipmentStore;
+import run.halo.equipments.metrics.EquipmentMetrics;
+
+/**
+ * Benchmarks of the console listing, with and without the in-memory indexes.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EquipmentServiceBenchmark extends DatasetState {
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private EquipmentStore equipmentStore;
+
+    private EquipmentServiceImpl service;
+
+    private EquipmentQuery keywordQuery;
+
+    private EquipmentQuery groupQuery;
+
+    @Setup
+    public void prepareService() {
+        equipmentStore = new EquipmentStore(client);
+        EquipmentSearchIndex searchIndex = new EquipmentSearchIndex(equipmentStore);
+        EquipmentSortIndex sortIndex = new EquipmentSortIndex(equipmentStore);
+        if (indexed) {
+            equipmentStore.start();
+        }
+        service = new EquipmentServiceImpl(client, searchIndex, sortIndex,
+            new EquipmentQueryPlanner(searchIndex), new EquipmentMetrics());
+        keywordQuery = query("keyword", "键盘", "sort", "CREATE_TIME");
+        groupQuery = query("group", someGroup(), "sort", "DISPLAY_NAME", "sortOrder", "true");
+    }
+
+    @TearDown
+    public void stopIndexes() {
+        equipmentStore.stop();
+    }
+
+    @Benchmark
+    public void equipmentListPredicate(Blackhole blackhole) {
+        Predicate<Equipment> predicate = service.equipmentListPredicate(keywordQuery);
+        for (Equipment equipment : equipments) {
+            blackhole.consume(predicate.test(equipment));
+        }
+    }
+
+    @Benchmark
+    public ListResult<Equipment> listByKeyword() {
+        return service.listEquipment(keywordQuery).block();
+    }
+
+    @Benchmark
+    public ListResult<Equipment> listByGroup() {
+        return service.listEquipment(groupQuery).block();
+    }
+
+    private static EquipmentQuery query(String... pairs) {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.add(pairs[i], pairs[i + 1]);
+        }
+        params.add("page", "2");
+        params.add("size", "20");
+        return new EquipmentQuery(params);
+    }
+}
@@ -0,0 +1,148 @@
+package run.halo.equipments;
+
+import java.time.Duration;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.thymeleaf.spring6.SpringWebFluxTemplateEngine;
+import org.thymeleaf.spring6.view.reactive.ThymeleafReactiveViewResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+import run.halo.equipments.benchmark.InMemoryExtensionClient;
+import run.halo.equipments.feed.EquipmentChangeFeed;
+import run.halo.equipments.finders.EquipmentSnapshotScope;
+import run.halo.equipments.finders.impl.EquipmentFInderImpl;
+import run.halo.equipments.index.EquipmentIndex;
+import run.halo.equipments.index.EquipmentQueryPlanner;
+import run.halo.equipments.index.EquipmentSearchIndex;
+import run.halo.equipments.index.EquipmentSortIndex;
+import run.halo.equipments.index.EquipmentStore;
+import run.halo.equipments.metrics.EquipmentMetrics;
+import run.halo.equipments.service.impl.EquipmentGroupServiceImpl;
+import run.halo.equipments.service.impl.EquipmentServiceImpl;
+import run.halo.equipments.service.impl.EquipmentTransferServiceImpl;
+
+/**
+ * Serves the routes of the plugin on a local Reactor Netty server the way Halo does, wired
+ * by hand instead of by the plugin application context.
+ *
+ * <p>The <code>/equipments</code> route renders <code>templates/equipments.html</code> of
+ * the load test resources with Thymeleaf, in place of a theme. Custom endpoints are nested
+ * under <code>/apis/{group}/{version}</code> by {@link CustomEndpointsBuilder}.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public class HaloStandIn implements AutoCloseable {
+
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    private final EquipmentSettingsHolder settingsHolder;
+
+    private final EquipmentStore equipmentStore;
+
+    private final EquipmentChangeFeed changeFeed;
+
+    private final DisposableServer server;
+
+    public HaloStandIn(InMemoryExtensionClient client, ReactiveSettingFetcher settingFetcher) {
+        EquipmentMetrics metrics = new EquipmentMetrics();
+        settingsHolder = new EquipmentSettingsHolder(settingFetcher, client);
+        equipmentStore = new EquipmentStore(client);
+        EquipmentIndex equipmentIndex = new EquipmentIndex(equipmentStore);
+        EquipmentSearchIndex searchIndex = new EquipmentSearchIndex(equipmentStore);
+        EquipmentSortIndex sortIndex = new EquipmentSortIndex(equipmentStore);
+        changeFeed = new EquipmentChangeFeed(client);
+        // in the order of EquipmentPlugin#start()
+        settingsHolder.start();
+        equipmentStore.start();
+        changeFeed.start();
+        awaitReady();
+
+        ListETagSupport listETagSupport = new ListETagSupport(equipmentIndex);
+        EquipmentRouter equipmentRouter = new EquipmentRouter(
+            new EquipmentFInderImpl(client, equipmentIndex, metrics),
+            settingsHolder, equipmentIndex, new EquipmentPageCache(), metrics,
+            new EquipmentSnapshotScope(client, equipmentIndex));
+        EquipmentEndpoint equipmentEndpoint = new EquipmentEndpoint(
+            new EquipmentServiceImpl(client, searchIndex, sortIndex,
+                new EquipmentQueryPlanner(searchIndex), metrics),
+            new EquipmentTransferServiceImpl(client, sortIndex), listETagSupport, changeFeed);
+        EquipmentGroupEndpoint groupEndpoint = new EquipmentGroupEndpoint(
+            new EquipmentGroupServiceImpl(client, metrics), listETagSupport);
+
+        RouterFunction<ServerResponse> routes = equipmentRouter.equipmentRouter()
+            .and(new CustomEndpointsBuilder()
+                .add(equipmentEndpoint)
+                .add(groupEndpoint)
+                .build());
+        HandlerStrategies strategies = HandlerStrategies.builder()
+            .viewResolver(viewResolver())
+            .build();
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(
+            RouterFunctions.toHttpHandler(routes, strategies));
+        server = HttpServer.create()
+            .host("127.0.0.1")
+            .port(0)
+            .handle(adapter)
+            .bindNow();
+    }
+
+    /**
+     * Gets the port the server is bound to.
+     *
+     * @return local port
+     */
+    public int port() {
+        return server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+        // in the order of EquipmentPlugin#stop()
+        changeFeed.stop();
+        equipmentStore.stop();
+        settingsHolder.stop();
+    }
+
+    private void awaitReady() {
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while (!equipmentStore.isReady()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("The equipment indexes were not built within "
+                    + READY_TIMEOUT);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building the indexes.", e);
+            }
+        }
+    }
+
+    private static ThymeleafReactiveViewResolver viewResolver() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode(TemplateMode.HTML);
+        templateResolver.setCacheable(true);
+        SpringWebFluxTemplateEngine templateEngine = new SpringWebFluxTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+
+        // views are initialized by the application context, an empty one is enough
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.refresh();
+        ThymeleafReactiveViewResolver viewResolver = new ThymeleafReactiveViewResolver();
+        viewResolver.setApplicationContext(applicationContext);
+        viewResolver.setTemplateEngine(templateEngine);
+        return viewResolver;
+    }
+}
@@ -0,0 +1,52 @@
+package run.halo.equipments;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Map;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.Unstructured;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+
+/**
+ * A {@link ReactiveSettingFetcher} answering from setting groups held in memory.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public class InMemorySettingFetcher implements ReactiveSettingFetcher {
+
+    private final Map<String, JsonNode> groups;
+
+    public InMemorySettingFetcher(Map<String, JsonNode> groups) {
+        this.groups = Map.copyOf(groups);
+    }
+
+    /**
+     * Creates a fetcher holding the <code>base</code> group of the plugin.
+     *
+     * @param pageSize page size of <code>/equipments</code>
+     * @param renderCache whether the rendered model is cached
+     * @return a setting fetcher
+     */
+    public static InMemorySettingFetcher base(int pageSize, boolean renderCache) {
+        ObjectNode base = Unstructured.OBJECT_MAPPER.createObjectNode()
+            .put("title", EquipmentSettings.DEFAULT_TITLE)
+            .put("pageSize", pageSize)
+            .put("renderCache", renderCache);
+        return new InMemorySettingFetcher(Map.of("base", base));
+    }
+
+    @Override
+    public <T> Mono<T> fetch(String group, Class<T> clazz) {
+        return get(group).map(node -> Unstructured.OBJECT_MAPPER.convertValue(node, clazz));
+    }
+
+    @Override
+    public Mono<JsonNode> get(String group) {
+        return Mono.justOrEmpty(groups.get(group));
+    }
+
+    public Mono<Map<String, JsonNode>> getValues() {
+        return Mono.just(groups);
+    }
+}
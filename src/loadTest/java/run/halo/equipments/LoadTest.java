@@ -0,0 +1,301 @@
+package run.halo.equipments;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import run.halo.equipments.benchmark.Datasets;
+import run.halo.equipments.benchmark.InMemoryExtensionClient;
+
+/**
+ * Drives concurrent requests against the routes of the plugin served by {@link HaloStandIn}
+ * and reports latency percentiles, throughput and heap usage per scenario.
+ *
+ * <p>Everything is configured by system properties, see <code>loadTest</code> in
+ * <code>build.gradle</code>:
+ * <ul>
+ *     <li><code>loadTest.equipments</code>, <code>loadTest.groups</code>: dataset size</li>
+ *     <li><code>loadTest.concurrency</code>: requests in flight</li>
+ *     <li><code>loadTest.warmup</code>, <code>loadTest.duration</code>: seconds per
+ *     scenario</li>
+ *     <li><code>loadTest.pageSize</code>, <code>loadTest.renderCache</code>: plugin
+ *     settings</li>
+ *     <li><code>loadTest.scenarios</code>: comma separated scenario names, all by
+ *     default</li>
+ *     <li><code>loadTest.output</code>: JSON report path</li>
+ * </ul>
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public class LoadTest {
+
+    private static final String API_PREFIX =
+        "/apis/api.plugin.halo.run/v1alpha1/plugins/PluginEquipments";
+
+    private final Settings settings;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    LoadTest(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Settings settings = Settings.fromSystemProperties();
+        Report report = new LoadTest(settings).run();
+        Path output = Path.of(settings.output());
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(output.toFile(), report);
+        System.out.println("Report written to " + output.toAbsolutePath());
+    }
+
+    Report run() {
+        InMemoryExtensionClient client = new InMemoryExtensionClient();
+        client.seed(Datasets.groups(settings.groups()));
+        client.seed(Datasets.equipments(settings.equipments(), settings.groups()));
+        List<ScenarioResult> results = new ArrayList<>();
+        try (HaloStandIn standIn = new HaloStandIn(client,
+            InMemorySettingFetcher.base(settings.pageSize(), settings.renderCache()))) {
+            ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(settings.concurrency())
+                .pendingAcquireMaxCount(-1)
+                .build();
+            HttpClient httpClient = HttpClient.create(connections)
+                .baseUrl("http://127.0.0.1:" + standIn.port());
+            try {
+                scenarios().forEach((name, path) -> {
+                    if (settings.includes(name)) {
+                        results.add(runScenario(httpClient, name, path));
+                    }
+                });
+            } finally {
+                connections.disposeLater().block();
+            }
+        }
+        return new Report(settings, results);
+    }
+
+    private Map<String, String> scenarios() {
+        String group = "group-" + settings.groups() / 2;
+        Map<String, String> scenarios = new LinkedHashMap<>();
+        scenarios.put("equipments", "/equipments");
+        scenarios.put("equipmentsByGroup", "/equipments/page/2?group=" + group);
+        scenarios.put("listEquipments", API_PREFIX + "/equipments?page=1&size=20");
+        scenarios.put("listEquipmentsByKeyword",
+            API_PREFIX + "/equipments?page=1&size=20&keyword=keyboard");
+        scenarios.put("listEquipmentGroups", API_PREFIX + "/equipmentgroups");
+        return scenarios;
+    }
+
+    private ScenarioResult runScenario(HttpClient httpClient, String name, String path) {
+        System.out.printf("%s: warming up %ds%n", name, settings.warmup());
+        drive(httpClient, path, Duration.ofSeconds(settings.warmup()));
+        System.gc();
+
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+        AtomicLong heapPeak = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> heapPeak.accumulateAndGet(
+            memory.getHeapMemoryUsage().getUsed(), Math::max), 0, 100, TimeUnit.MILLISECONDS);
+        System.out.printf("%s: measuring %ds%n", name, settings.duration());
+        long start = System.nanoTime();
+        Recorder recorder;
+        try {
+            recorder = drive(httpClient, path, Duration.ofSeconds(settings.duration()));
+        } finally {
+            sampler.shutdownNow();
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        ScenarioResult result = ScenarioResult.of(name, path, recorder, elapsedSeconds,
+            heapPeak.get(), gcCount() - gcCount, gcTime() - gcTime);
+        System.out.printf("%s: %.1f req/s, p50 %.2fms, p95 %.2fms, p99 %.2fms, %d errors%n",
+            name, result.throughput(), result.p50Millis(), result.p95Millis(),
+            result.p99Millis(), result.errors());
+        return result;
+    }
+
+    /**
+     * Keeps {@link Settings#concurrency()} requests in flight until the duration elapses.
+     */
+    private Recorder drive(HttpClient httpClient, String path, Duration duration) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        return Flux.range(0, settings.concurrency())
+            .flatMap(worker -> {
+                Recorder recorder = new Recorder();
+                return Mono.defer(() -> {
+                        long start = System.nanoTime();
+                        return httpClient.get()
+                            .uri(path)
+                            .responseSingle((response, body) -> body.asByteArray()
+                                .defaultIfEmpty(new byte[0])
+                                .doOnNext(bytes -> recorder.record(System.nanoTime() - start,
+                                    response.status().code(), bytes.length)))
+                            .onErrorResume(e -> {
+                                recorder.error();
+                                return Mono.empty();
+                            });
+                    })
+                    .repeat(() -> System.nanoTime() < deadline)
+                    .then(Mono.just(recorder));
+            }, settings.concurrency())
+            .reduce(Recorder::merge)
+            .blockOptional()
+            .orElseGet(Recorder::new);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+    /**
+     * Latencies of one worker, only touched by the worker until merged.
+     */
+    static class Recorder {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private long errors;
+
+        private long bytes;
+
+        void record(long latencyNanos, int status, int length) {
+            if (status >= 400) {
+                errors++;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            bytes += length;
+        }
+
+        void error() {
+            errors++;
+        }
+
+        Recorder merge(Recorder other) {
+            Recorder merged = new Recorder();
+            merged.latencies = Arrays.copyOf(latencies, count + other.count);
+            System.arraycopy(other.latencies, 0, merged.latencies, count, other.count);
+            merged.count = count + other.count;
+            merged.errors = errors + other.errors;
+            merged.bytes = bytes + other.bytes;
+            return merged;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * Load test settings.
+     */
+    record Settings(int equipments, int groups, int concurrency, int warmup, int duration,
+                    int pageSize, boolean renderCache, List<String> scenarios,
+                    String output) {
+
+        static Settings fromSystemProperties() {
+            String scenarios = System.getProperty("loadTest.scenarios", "");
+            return new Settings(
+                Integer.getInteger("loadTest.equipments", 10_000),
+                Integer.getInteger("loadTest.groups", 100),
+                Integer.getInteger("loadTest.concurrency", 32),
+                Integer.getInteger("loadTest.warmup", 10),
+                Integer.getInteger("loadTest.duration", 30),
+                Integer.getInteger("loadTest.pageSize", ModelConst.DEFAULT_PAGE_SIZE),
+                Boolean.getBoolean("loadTest.renderCache"),
+                scenarios.isBlank() ? List.of() : List.of(scenarios.split("\\s*,\\s*")),
+                System.getProperty("loadTest.output", "build/results/loadTest/results.json")
+            );
+        }
+
+        boolean includes(String scenario) {
+            return scenarios.isEmpty() || scenarios.contains(scenario);
+        }
+    }
+
+    /**
+     * Measurements of one scenario, latencies in milliseconds.
+     */
+    record ScenarioResult(String name, String path, long requests, long errors,
+                          double throughput, double meanMillis, double p50Millis,
+                          double p95Millis, double p99Millis, double maxMillis,
+                          long meanResponseBytes, long heapPeakBytes, long gcCount,
+                          long gcMillis) {
+
+        static ScenarioResult of(String name, String path, Recorder recorder,
+            double elapsedSeconds, long heapPeakBytes, long gcCount, long gcMillis) {
+            long[] sorted = recorder.sorted();
+            long total = 0;
+            for (long latency : sorted) {
+                total += latency;
+            }
+            int requests = sorted.length;
+            return new ScenarioResult(name, path, requests, recorder.errors,
+                requests / elapsedSeconds,
+                requests == 0 ? 0 : millis(total / requests),
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                requests == 0 ? 0 : millis(sorted[requests - 1]),
+                requests == 0 ? 0 : recorder.bytes / requests,
+                heapPeakBytes, gcCount, gcMillis);
+        }
+
+        private static double percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            // nearest rank
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return millis(sorted[Math.max(rank, 1) - 1]);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    record Report(Settings settings, List<ScenarioResult> scenarios) {
+    }
+}
@@ -0,0 +1,102 @@
+package run.halo.equipments;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import java.net.URI;
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.cover.CoverProbe;
+import run.halo.equipments.cover.CoverThumbnailService;
+import run.halo.equipments.cover.CoverVariants;
+import run.halo.equipments.cover.LocalOrigin;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Provides a <code>/plugins/PluginEquipments/covers/{name}</code> route serving resized
+ * variants of <code>spec.cover</code>.
+ *
+ * <p>Requests carrying the current cover version are cached forever, since the version
+ * changes with the cover and its probed revision. Every request asks {@link CoverProbe} to
+ * revalidate the cover, which it does at most once per interval, so that a file replaced
+ * at the same path moves to new urls. Covers that can not be resized are redirected to.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+@AllArgsConstructor
+public class CoverRouter {
+    
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365))
+        .cachePublic()
+        .immutable();
+    
+    private final ReactiveExtensionClient client;
+    
+    private final EquipmentIndex equipmentIndex;
+    
+    private final CoverThumbnailService thumbnailService;
+    
+    private final CoverProbe coverProbe;
+    
+    private final LocalOrigin localOrigin;
+    
+    @Bean
+    RouterFunction<ServerResponse> coverRouter() {
+        return route(GET("/plugins/PluginEquipments/covers/{name}"), this::cover);
+    }
+    
+    private Mono<ServerResponse> cover(ServerRequest request) {
+        String name = request.pathVariable("name");
+        return Mono.justOrEmpty(equipmentIndex.get(name))
+            .switchIfEmpty(Mono.defer(() -> client.fetch(Equipment.class, name)))
+            .filter(equipment -> equipment.getSpec() != null
+                && CoverVariants.isLocal(equipment.getSpec().getCover()))
+            .flatMap(equipment -> serve(request, equipment))
+            .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+    
+    private Mono<ServerResponse> serve(ServerRequest request, Equipment equipment) {
+        String cover = equipment.getSpec().getCover();
+        String revision = CoverVariants.revision(equipment);
+        int width = CoverVariants.normalizeWidth(request.queryParam("w")
+            .map(w -> NumberUtils.toInt(w, CoverVariants.DEFAULT_WIDTH))
+            .orElse(CoverVariants.DEFAULT_WIDTH));
+        // variants of a cover that has not been probed yet are not bound to its content
+        boolean versioned = revision != null && request.queryParam("v")
+            .filter(v -> StringUtils.equals(v, CoverVariants.version(cover, revision)))
+            .isPresent();
+        coverProbe.revalidate(equipment.getMetadata().getName());
+        URI original = URI.create(cover);
+        return thumbnailService.variant(origin(request), cover, revision, width)
+            .flatMap(variant -> request.checkNotModified(variant.etag())
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                    .contentType(variant.mediaType())
+                    .eTag(variant.etag())
+                    .cacheControl(versioned ? IMMUTABLE : CacheControl.noCache())
+                    .body(BodyInserters.fromResource(
+                        new FileSystemResource(variant.file()))))))
+            .onErrorResume(e -> ServerResponse.temporaryRedirect(original).build())
+            .switchIfEmpty(Mono.defer(() -> ServerResponse.temporaryRedirect(original)
+                .build()));
+    }
+    
+    private URI origin(ServerRequest request) {
+        return request.localAddress()
+            .map(localOrigin::observe)
+            .orElseGet(localOrigin::get);
+    }
+}
@@ -0,0 +1,63 @@
+package run.halo.equipments;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.function.Function;
+import lombok.Value;
+
+/**
+ * A page of a keyset paginated list.
+ *
+ * @param <T> item type
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Value
+public class CursorListResult<T> {
+
+    @Schema(description = "Page size.")
+    int size;
+
+    @Schema(description = "Items of this page.")
+    List<T> items;
+
+    @Schema(description = "Whether there is a next page.")
+    boolean hasNext;
+
+    @Schema(description = "Token for the next page, null if there is no next page.")
+    String nextCursor;
+
+    /**
+     * Creates a page from the items fetched after the cursor.
+     *
+     * @param fetched up to <code>size + 1</code> items, the extra one tells if there is a
+     * next page
+     * @param size page size
+     * @param cursorOf creates the cursor pointing after an item
+     * @param mapper item mapper
+     * @param <S> source item type
+     * @param <T> result item type
+     * @return a cursor list result
+     */
+    public static <S, T> CursorListResult<T> of(List<S> fetched, int size,
+        Function<S, EquipmentCursor> cursorOf, Function<S, T> mapper) {
+        boolean hasNext = fetched.size() > size;
+        List<S> page = hasNext ? fetched.subList(0, size) : fetched;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode()
+            : null;
+        return new CursorListResult<>(size, page.stream().map(mapper).toList(), hasNext,
+            nextCursor);
+    }
+
+    /**
+     * Maps the items of this page, keeping its cursor.
+     *
+     * @param mapper item mapper
+     * @param <R> result item type
+     * @return a new cursor list result
+     */
+    public <R> CursorListResult<R> map(Function<T, R> mapper) {
+        return new CursorListResult<>(size, items.stream().map(mapper).toList(), hasNext,
+            nextCursor);
+    }
+}
@@ -19,6 +19,9 @@ public class Equipment extends AbstractExtension {
 
     private EquipmentSpec spec;
 
+    @Schema
+    private EquipmentStatus status;
+
     @Data
     public static class EquipmentSpec {
         @Schema(required = true)
@@ -37,6 +40,44 @@ public class Equipment extends AbstractExtension {
         private String groupName;
     }
 
+    @Data
+    public static class EquipmentStatus {
+
+        @Schema(description = "Metadata of spec.cover, probed in the background.")
+        private CoverStatus cover;
+    }
+
+    @Data
+    public static class CoverStatus {
+
+        @Schema(description = "The cover this metadata was probed from.")
+        private String source;
+
+        private Integer width;
+
+        private Integer height;
+
+        @Schema(description = "Size of the cover in bytes.")
+        private Long bytes;
+
+        @Schema(description = "Dominant color in hex, e.g. #a1b2c3.")
+        private String dominantColor;
+
+        private String blurhash;
+
+        @Schema(description = "Revision of the probed cover content, its ETag, Last-Modified "
+            + "or a digest of it.")
+        private String revision;
+    }
+
+    @JsonIgnore
+    public EquipmentStatus getStatusOrDefault() {
+        if (this.status == null) {
+            this.status = new EquipmentStatus();
+        }
+        return this.status;
+    }
+
     @JsonIgnore
     public boolean isDeleted() {
         return Objects.equals(true,
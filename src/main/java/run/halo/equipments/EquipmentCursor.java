@@ -0,0 +1,122 @@
+package run.halo.equipments;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+import run.halo.app.extension.Metadata;
+
+/**
+ * An opaque continuation token for keyset pagination of {@link Equipment}.
+ *
+ * <p>The token carries the sort key of the last returned equipment (priority, creation
+ * time, display name and name) together with the order it was produced by, so that the
+ * next page starts right after that key instead of skipping an offset.
+ *
+ * @param sort sorter name, null for the default finder order
+ * @param ascending whether the order is ascending
+ * @param priority priority of the last equipment
+ * @param creationTimestamp creation time of the last equipment
+ * @param displayName display name of the last equipment
+ * @param name name of the last equipment
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public record EquipmentCursor(@Nullable String sort, boolean ascending,
+                              @Nullable Integer priority, String creationTimestamp,
+                              @Nullable String displayName, String name) {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Creates a cursor pointing after the given equipment.
+     *
+     * @param equipment last equipment of a page
+     * @param sort sorter, null for the default finder order
+     * @param ascending whether the order is ascending
+     * @return a cursor
+     */
+    public static EquipmentCursor after(Equipment equipment, @Nullable EquipmentSorter sort,
+        boolean ascending) {
+        var spec = equipment.getSpec();
+        return new EquipmentCursor(sort == null ? null : sort.name(), ascending,
+            spec == null ? null : spec.getPriority(),
+            equipment.getMetadata().getCreationTimestamp().toString(),
+            spec == null ? null : spec.getDisplayName(),
+            equipment.getMetadata().getName()
+        );
+    }
+
+    /**
+     * Decodes a token.
+     *
+     * @param token token, may be blank for the first page
+     * @return a cursor or null if the token is blank
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    @Nullable
+    public static EquipmentCursor decode(@Nullable String token) {
+        if (StringUtils.isBlank(token)) {
+            return null;
+        }
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token);
+            EquipmentCursor cursor = OBJECT_MAPPER.readValue(json, EquipmentCursor.class);
+            Instant.parse(cursor.creationTimestamp());
+            Objects.requireNonNull(cursor.name());
+            return cursor;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Encodes this cursor as an url-safe token.
+     *
+     * @return token
+     */
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(OBJECT_MAPPER.writeValueAsString(this)
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether this cursor was produced by the given order.
+     *
+     * @param sort sorter, null for the default finder order
+     * @param ascending whether the order is ascending
+     * @return true if matches
+     */
+    public boolean matches(@Nullable EquipmentSorter sort, boolean ascending) {
+        return Objects.equals(this.sort, sort == null ? null : sort.name())
+            && this.ascending == ascending;
+    }
+
+    /**
+     * Builds an equipment carrying only the sort key, to be compared with the comparator
+     * the cursor was produced by.
+     *
+     * @return a probe equipment
+     */
+    public Equipment toProbe() {
+        var metadata = new Metadata();
+        metadata.setName(name);
+        metadata.setCreationTimestamp(Instant.parse(creationTimestamp));
+        var spec = new Equipment.EquipmentSpec();
+        spec.setPriority(priority);
+        spec.setDisplayName(displayName);
+        var probe = new Equipment();
+        probe.setMetadata(metadata);
+        probe.setSpec(spec);
+        return probe;
+    }
+}
@@ -1,19 +1,39 @@
 package run.halo.equipments;
 
 import static org.springdoc.core.fn.builders.apiresponse.Builder.responseBuilder;
+import static org.springdoc.core.fn.builders.parameter.Builder.parameterBuilder;
+import static org.springdoc.core.fn.builders.requestbody.Builder.requestBodyBuilder;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.AllArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springdoc.webflux.core.fn.SpringdocRouteBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.core.extension.endpoint.CustomEndpoint;
 import run.halo.app.extension.GroupVersion;
 import run.halo.app.extension.ListResult;
 import run.halo.app.extension.router.QueryParamBuildUtil;
+import run.halo.equipments.feed.ChangeEvent;
+import run.halo.equipments.feed.EquipmentChangeFeed;
 import run.halo.equipments.service.EquipmentService;
+import run.halo.equipments.service.EquipmentTransferService;
 
 /**
  * A custom endpoint for {@link Equipment}.
@@ -25,15 +45,25 @@ import run.halo.equipments.service.EquipmentService;
 @AllArgsConstructor
 public class EquipmentEndpoint implements CustomEndpoint {
     
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    
     private final EquipmentService equipmentService;
     
+    private final EquipmentTransferService equipmentTransferService;
+    
+    private final ListETagSupport listETagSupport;
+    
+    private final EquipmentChangeFeed changeFeed;
+    
     @Override
     public RouterFunction<ServerResponse> endpoint() {
         final var tag = "api.plugin.halo.run/v1alpha1/Equipment";
         return SpringdocRouteBuilder.route().GET("plugins/PluginEquipments/equipments",
             this::listEquipment, builder -> {
                 builder.operationId("ListEquipments")
-                    .description("List equipments.")
+                    .description("List equipments. With Accept: application/x-ndjson or "
+                        + "text/event-stream, equipments are streamed one by one instead, "
+                        + "all of them unless a positive size is given.")
                     .tag(tag)
                     .response(responseBuilder().implementation(
                         ListResult.generateGenericClass(Equipment.class)));
@@ -41,6 +71,56 @@ public class EquipmentEndpoint implements CustomEndpoint {
                     EquipmentQuery.class
                 );
             }
+        ).GET("plugins/PluginEquipments/equipments:scroll", this::scrollEquipment,
+            builder -> {
+                builder.operationId("ScrollEquipments")
+                    .description("List equipments by keyset pagination, pass the "
+                        + "nextCursor of a page as the cursor of the next request. "
+                        + "Sorting by RELEVANCE is rejected with 400.")
+                    .tag(tag)
+                    .response(responseBuilder().implementation(CursorListResult.class));
+                QueryParamBuildUtil.buildParametersFromType(builder,
+                    EquipmentQuery.class
+                );
+            }
+        ).GET("plugins/PluginEquipments/equipments:export", this::exportEquipments,
+            builder -> builder.operationId("ExportEquipments")
+                .description("Export all equipment groups followed by all equipments as "
+                    + "NDJSON, one extension per line.")
+                .tag(tag)
+                .response(responseBuilder().implementation(Equipment.class))
+        ).POST("plugins/PluginEquipments/equipments:import", this::importEquipments,
+            builder -> builder.operationId("ImportEquipments")
+                .description("Import equipment groups and equipments from NDJSON, one "
+                    + "extension per line. Extensions are created or updated by name, and "
+                    + "a result is streamed back for every line.")
+                .tag(tag)
+                .requestBody(requestBodyBuilder().required(true).description(
+                    "NDJSON of EquipmentGroup and Equipment, e.g. the export output."))
+                .response(responseBuilder().implementation(EquipmentImportResult.class))
+        ).GET("plugins/PluginEquipments/equipments:changes", this::streamChanges,
+            builder -> builder.operationId("StreamEquipmentChanges")
+                .description("Stream created, updated and deleted equipments and equipment "
+                    + "groups as server-sent events. Pass the id of the last event received "
+                    + "as Last-Event-ID or the since parameter to resume, a RESET event "
+                    + "means local state must be reloaded.")
+                .tag(tag)
+                .parameter(parameterBuilder()
+                    .in(ParameterIn.QUERY)
+                    .name("since")
+                    .description("Id of the last event received.")
+                    .implementation(String.class)
+                    .required(false))
+                .response(responseBuilder().implementation(ChangeEvent.class))
+        ).POST("plugins/PluginEquipments/equipments:reorder", this::reorderEquipment,
+            builder -> builder.operationId("ReorderEquipment")
+                .description("Move an equipment between two neighbours of its group. "
+                    + "Usually only the moved equipment gets a new priority, the priorities "
+                    + "of the group are spread out again when there is no gap left.")
+                .tag(tag)
+                .requestBody(requestBodyBuilder().required(true)
+                    .implementation(ReorderRequest.class))
+                .response(responseBuilder().implementation(ReorderResult.class))
         ).build();
     }
     
@@ -51,7 +131,111 @@ public class EquipmentEndpoint implements CustomEndpoint {
     
     private Mono<ServerResponse> listEquipment(ServerRequest serverRequest) {
         EquipmentQuery query = new EquipmentQuery(serverRequest.queryParams());
-        return equipmentService.listEquipment(query).flatMap(
+        if (query.isExplain()) {
+            return equipmentService.explainEquipment(query).flatMap(
+                plan -> ServerResponse.ok().bodyValue(plan));
+        }
+        MediaType streamType = streamType(serverRequest);
+        if (MediaType.APPLICATION_NDJSON.equals(streamType)) {
+            return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(equipmentService.streamEquipment(query), Equipment.class);
+        }
+        if (MediaType.TEXT_EVENT_STREAM.equals(streamType)) {
+            var events = equipmentService.streamEquipment(query)
+                .map(equipment -> ServerSentEvent.builder(equipment)
+                    .id(equipment.getMetadata().getName())
+                    .event("equipment")
+                    .build())
+                // tells a finished stream apart from a dropped connection
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<Equipment>builder()
+                    .event("end")
+                    .build()));
+            return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(events));
+        }
+        FieldProjection projection = FieldProjection.from(serverRequest.queryParams());
+        return listETagSupport.respond(serverRequest,
+            ok -> equipmentService.listEquipment(query).flatMap(
+                equipments -> projection == null ? ok.bodyValue(equipments)
+                    : projection.respond(ok, equipments)));
+    }
+    
+    private Mono<ServerResponse> streamChanges(ServerRequest serverRequest) {
+        String since = serverRequest.headers().firstHeader("Last-Event-ID");
+        if (StringUtils.isBlank(since)) {
+            since = serverRequest.queryParam("since").orElse(null);
+        }
+        String epoch = null;
+        long after = 0;
+        if (StringUtils.isNotBlank(since)) {
+            epoch = StringUtils.substringBefore(since, "-");
+            after = NumberUtils.toLong(StringUtils.substringAfter(since, "-"), -1);
+        }
+        String currentEpoch = changeFeed.epoch();
+        var changes = changeFeed.subscribe(epoch, after)
+            .map(change -> ServerSentEvent.builder(change)
+                .id(currentEpoch + "-" + change.sequence())
+                .event(change.type().name())
+                .build())
+            .share();
+        // heartbeats end with the feed, e.g. on plugin stop, so that clients reconnect
+        var heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+            .map(tick -> ServerSentEvent.<ChangeEvent>builder().comment("heartbeat").build())
+            .takeUntilOther(changes.then());
+        return ServerResponse.ok()
+            .contentType(MediaType.TEXT_EVENT_STREAM)
+            .body(BodyInserters.fromServerSentEvents(Flux.merge(changes, heartbeats)));
+    }
+    
+    /**
+     * Gets the streaming media type if the client prefers one over json.
+     */
+    @Nullable
+    private static MediaType streamType(ServerRequest serverRequest) {
+        List<MediaType> accept = new ArrayList<>(serverRequest.headers().accept());
+        MimeTypeUtils.sortBySpecificity(accept);
+        for (MediaType mediaType : accept) {
+            if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mediaType)) {
+                return MediaType.APPLICATION_NDJSON;
+            }
+            if (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(mediaType)) {
+                return MediaType.TEXT_EVENT_STREAM;
+            }
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    private Mono<ServerResponse> exportEquipments(ServerRequest serverRequest) {
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"equipments.ndjson\"")
+            .body(equipmentTransferService.exportAll(), JsonNode.class);
+    }
+    
+    private Mono<ServerResponse> importEquipments(ServerRequest serverRequest) {
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(equipmentTransferService.importAll(serverRequest.bodyToFlux(String.class)),
+                EquipmentImportResult.class);
+    }
+    
+    private Mono<ServerResponse> reorderEquipment(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(ReorderRequest.class)
+            .switchIfEmpty(Mono.error(
+                () -> new ServerWebInputException("Request body is required.")))
+            .flatMap(equipmentService::reorderEquipment)
+            .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+    
+    private Mono<ServerResponse> scrollEquipment(ServerRequest serverRequest) {
+        EquipmentQuery query = new EquipmentQuery(serverRequest.queryParams());
+        return equipmentService.scrollEquipment(query).flatMap(
             equipments -> ServerResponse.ok().bodyValue(equipments));
     }
     
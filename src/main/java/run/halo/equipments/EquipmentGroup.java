@@ -42,5 +42,10 @@ public class EquipmentGroup extends AbstractExtension {
     public static class PostGroupStatus {
 
         public Integer equipmentCount;
+
+        /**
+         * Equipments deleted so far while the group is being deleted.
+         */
+        public Integer deletedEquipmentCount;
     }
 }
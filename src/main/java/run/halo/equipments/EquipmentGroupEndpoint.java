@@ -1,13 +1,17 @@
 package run.halo.equipments;
 
 import static org.springdoc.core.fn.builders.apiresponse.Builder.responseBuilder;
+import static org.springdoc.core.fn.builders.parameter.Builder.parameterBuilder;
+import static org.springdoc.core.fn.builders.requestbody.Builder.requestBodyBuilder;
 
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import lombok.AllArgsConstructor;
 import org.springdoc.webflux.core.fn.SpringdocRouteBuilder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
 import run.halo.app.core.extension.endpoint.CustomEndpoint;
 import run.halo.app.extension.GroupVersion;
@@ -28,6 +32,8 @@ public class EquipmentGroupEndpoint implements CustomEndpoint {
     
     private final EquipmentGroupService equipmentGroupService;
     
+    private final ListETagSupport listETagSupport;
+    
     @Override
     public RouterFunction<ServerResponse> endpoint() {
         final var tag = "api.plugin.halo.run/v1alpha1/EquipmentGroup";
@@ -41,14 +47,32 @@ public class EquipmentGroupEndpoint implements CustomEndpoint {
                 QueryParamBuildUtil.buildParametersFromType(builder,
                     QueryListRequest.class
                 );
+                builder.parameter(parameterBuilder()
+                    .in(ParameterIn.QUERY)
+                    .name(FieldProjection.PARAM)
+                    .description("Comma separated property paths of the items to return, "
+                        + "e.g. spec.displayName,status.equipmentCount. metadata.name is "
+                        + "always returned.")
+                    .implementation(String.class)
+                    .required(false));
             }
         ).DELETE("plugins/PluginEquipments/equipmentgroups/{name}",
             this::deleteEquipmentGroup, builder -> builder.operationId(
                     "DeleteEquipmentGroup")
-                .description("Delete equipmentGroup.")
+                .description("Delete equipmentGroup, its equipments are deleted in the "
+                    + "background while the group stays pending deletion.")
+                .tag(tag)
+                .response(responseBuilder().implementation(EquipmentGroup.class))
+        ).POST("plugins/PluginEquipments/equipmentgroups:reorder",
+            this::reorderEquipmentGroup, builder -> builder.operationId(
+                    "ReorderEquipmentGroup")
+                .description("Move an equipmentGroup between two neighbours. Usually only "
+                    + "the moved group gets a new priority, the priorities of all groups "
+                    + "are spread out again when there is no gap left.")
                 .tag(tag)
-                .response(responseBuilder().implementation(
-                    ListResult.generateGenericClass(EquipmentGroup.class)))
+                .requestBody(requestBodyBuilder().required(true)
+                    .implementation(ReorderRequest.class))
+                .response(responseBuilder().implementation(ReorderResult.class))
         ).build();
     }
     
@@ -60,13 +84,24 @@ public class EquipmentGroupEndpoint implements CustomEndpoint {
     private Mono<ServerResponse> deleteEquipmentGroup(ServerRequest serverRequest) {
         String name = serverRequest.pathVariable("name");
         return equipmentGroupService.deleteEquipmentGroup(name).flatMap(
-            equipmentGroup -> ServerResponse.ok().bodyValue(equipmentGroup));
+            equipmentGroup -> ServerResponse.accepted().bodyValue(equipmentGroup));
+    }
+    
+    private Mono<ServerResponse> reorderEquipmentGroup(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(ReorderRequest.class)
+            .switchIfEmpty(Mono.error(
+                () -> new ServerWebInputException("Request body is required.")))
+            .flatMap(equipmentGroupService::reorderEquipmentGroup)
+            .flatMap(result -> ServerResponse.ok().bodyValue(result));
     }
     
     private Mono<ServerResponse> listEquipmentGroup(ServerRequest serverRequest) {
         QueryListRequest request = new EquipmentQuery(serverRequest.queryParams());
-        return equipmentGroupService.listEquipmentGroup(request).flatMap(
-            equipmentGroups -> ServerResponse.ok().bodyValue(equipmentGroups));
+        FieldProjection projection = FieldProjection.from(serverRequest.queryParams());
+        return listETagSupport.respond(serverRequest,
+            ok -> equipmentGroupService.listEquipmentGroup(request).flatMap(
+                equipmentGroups -> projection == null ? ok.bodyValue(equipmentGroups)
+                    : projection.respond(ok, equipmentGroups)));
     }
     
 }
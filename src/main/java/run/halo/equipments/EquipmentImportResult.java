@@ -0,0 +1,40 @@
+package run.halo.equipments;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * Result of one line of an equipments import.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Value
+public class EquipmentImportResult {
+
+    @Schema(description = "Line number in the import stream, starts from 1.")
+    long line;
+
+    @Schema(description = "Kind of the imported extension.")
+    String kind;
+
+    @Schema(description = "Name of the imported extension.")
+    String name;
+
+    @Schema(description = "One of created, updated or failed.")
+    Status status;
+
+    @Schema(description = "Reason of the failure.")
+    String message;
+
+    public enum Status {
+        created,
+        updated,
+        failed
+    }
+
+    public static EquipmentImportResult failed(long line, String kind, String name,
+        String message) {
+        return new EquipmentImportResult(line, kind, name, Status.failed, message);
+    }
+}
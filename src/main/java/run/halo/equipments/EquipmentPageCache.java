@@ -0,0 +1,64 @@
+package run.halo.equipments;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches the resolved model of the <code>/equipments</code> route.
+ *
+ * <p>Entries are stamped with the data and settings version they were built from, any
+ * equipment, group or setting change evicts all of them.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentPageCache {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<String, Map<String, Object>> entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private String stamp;
+
+    /**
+     * Gets the cached model or loads it.
+     *
+     * @param stamp version stamp of the data and settings the model is built from
+     * @param key cache key within the stamp
+     * @param loader loads the model on cache miss
+     * @return a mono of the model
+     */
+    public Mono<Map<String, Object>> get(String stamp, String key,
+        Supplier<Mono<Map<String, Object>>> loader) {
+        Map<String, Object> cached = lookup(stamp, key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return loader.get().doOnNext(model -> put(stamp, key, model));
+    }
+
+    private synchronized Map<String, Object> lookup(String stamp, String key) {
+        if (!stamp.equals(this.stamp)) {
+            entries.clear();
+            this.stamp = stamp;
+            return null;
+        }
+        return entries.get(key);
+    }
+
+    private synchronized void put(String stamp, String key, Map<String, Object> model) {
+        if (stamp.equals(this.stamp)) {
+            entries.put(key, model);
+        }
+    }
+}
@@ -4,6 +4,12 @@ import org.pf4j.PluginWrapper;
 import org.springframework.stereotype.Component;
 import run.halo.app.extension.SchemeManager;
 import run.halo.app.plugin.BasePlugin;
+import run.halo.equipments.cover.CoverProbe;
+import run.halo.equipments.cover.CoverThumbnailService;
+import run.halo.equipments.feed.EquipmentChangeFeed;
+import run.halo.equipments.index.EquipmentStore;
+import run.halo.equipments.reconciler.EquipmentGroupReconciler;
+import run.halo.equipments.reconciler.EquipmentReconciler;
 
 /**
  * @author ryanwang
@@ -13,19 +19,57 @@ import run.halo.app.plugin.BasePlugin;
 public class EquipmentPlugin extends BasePlugin {
     private final SchemeManager schemeManager;
     
-    public EquipmentPlugin(PluginWrapper wrapper, SchemeManager schemeManager) {
+    private final EquipmentStore equipmentStore;
+    
+    private final EquipmentSettingsHolder settingsHolder;
+    
+    private final CoverThumbnailService thumbnailService;
+    
+    private final CoverProbe coverProbe;
+    
+    private final EquipmentChangeFeed changeFeed;
+    
+    private final EquipmentReconciler equipmentReconciler;
+    
+    private final EquipmentGroupReconciler groupReconciler;
+    
+    public EquipmentPlugin(PluginWrapper wrapper, SchemeManager schemeManager,
+        EquipmentStore equipmentStore, EquipmentSettingsHolder settingsHolder,
+        CoverThumbnailService thumbnailService, CoverProbe coverProbe,
+        EquipmentChangeFeed changeFeed, EquipmentReconciler equipmentReconciler,
+        EquipmentGroupReconciler groupReconciler) {
         super(wrapper);
         this.schemeManager = schemeManager;
+        this.equipmentStore = equipmentStore;
+        this.settingsHolder = settingsHolder;
+        this.thumbnailService = thumbnailService;
+        this.coverProbe = coverProbe;
+        this.changeFeed = changeFeed;
+        this.equipmentReconciler = equipmentReconciler;
+        this.groupReconciler = groupReconciler;
     }
     
     @Override
     public void start() {
         schemeManager.register(Equipment.class);
         schemeManager.register(EquipmentGroup.class);
+        settingsHolder.start();
+        equipmentStore.start();
+        thumbnailService.start();
+        coverProbe.start();
+        changeFeed.start();
     }
     
     @Override
     public void stop() {
+        // nothing removes the finalizers once the reconcilers stop, deletes would hang
+        groupReconciler.releaseFinalizers();
+        equipmentReconciler.releaseFinalizers();
+        changeFeed.stop();
+        coverProbe.stop();
+        thumbnailService.stop();
+        equipmentStore.stop();
+        settingsHolder.stop();
         schemeManager.unregister(schemeManager.get(Equipment.class));
         schemeManager.unregister(schemeManager.get(EquipmentGroup.class));
     }
@@ -1,6 +1,12 @@
 package run.halo.equipments;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.MultiValueMap;
@@ -14,6 +20,17 @@ import run.halo.app.extension.router.IListRequest;
  */
 public class EquipmentQuery extends IListRequest.QueryListRequest {
     
+    /**
+     * Parameters shaping the response only, they do not change the equipments returned.
+     */
+    private static final Set<String> RESPONSE_PARAMS = Set.of(FieldProjection.PARAM, "explain");
+
+    /**
+     * Parameters whose values are all applied together, so their order does not matter.
+     * Other parameters are read by their first value.
+     */
+    private static final Set<String> SELECTOR_PARAMS = Set.of("labelSelector", "fieldSelector");
+    
     public EquipmentQuery(MultiValueMap<String, String> queryParams) {
         super(queryParams);
     }
@@ -24,14 +41,35 @@ public class EquipmentQuery extends IListRequest.QueryListRequest {
     }
     
     @Nullable
-    @Schema(description = "Equipments filtered by keyword.")
+    @Schema(description = "Equipments filtered by keyword, matches display name, "
+        + "description or url.")
     public String getKeyword() {
         return StringUtils.defaultIfBlank(queryParams.getFirst("keyword"),
             null
         );
     }
     
-    @Schema(description = "Equipment collation.")
+    @Nullable
+    @Schema(description = "Continuation token returned by the previous keyset page.")
+    public String getCursor() {
+        return StringUtils.defaultIfBlank(queryParams.getFirst("cursor"), null);
+    }
+    
+    @Nullable
+    @Schema(description = "Comma separated property paths of the items to return, e.g. "
+        + "spec.displayName,spec.cover,spec.url. metadata.name is always returned.")
+    public String getFields() {
+        return StringUtils.defaultIfBlank(queryParams.getFirst(FieldProjection.PARAM), null);
+    }
+    
+    @Schema(description = "Returns the access plan of the query with its cost estimates "
+        + "instead of equipments, for debugging.")
+    public boolean isExplain() {
+        return Boolean.parseBoolean(queryParams.getFirst("explain"));
+    }
+    
+    @Schema(description = "Equipment collation, RELEVANCE only applies to keyword search "
+        + "and is rejected by keyset pagination.")
     public EquipmentSorter getSort() {
         String sort = queryParams.getFirst("sort");
         return EquipmentSorter.convertFrom(sort);
@@ -43,6 +81,30 @@ public class EquipmentQuery extends IListRequest.QueryListRequest {
         return convertBooleanOrNull(sortOrder);
     }
     
+    /**
+     * Gets a key that is equal for queries returning the same equipments, regardless of the
+     * order of the query parameters and of the values of selectors.
+     *
+     * @return normalized query
+     */
+    public String normalizedKey() {
+        Map<String, List<String>> params = new TreeMap<>();
+        queryParams.forEach((name, values) -> {
+            if (RESPONSE_PARAMS.contains(name)) {
+                return;
+            }
+            if (SELECTOR_PARAMS.contains(name)) {
+                List<String> sorted = new ArrayList<>(values);
+                sorted.sort(Comparator.nullsFirst(Comparator.naturalOrder()));
+                params.put(name, sorted);
+            } else {
+                // the first value wins, e.g. sort=a&sort=b sorts by a
+                params.put(name, values);
+            }
+        });
+        return params.toString();
+    }
+    
     private Boolean convertBooleanOrNull(String value) {
         return StringUtils.isBlank(value) ? null : Boolean.parseBoolean(value);
     }
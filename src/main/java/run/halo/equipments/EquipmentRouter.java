@@ -18,10 +18,12 @@ import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
-import run.halo.app.plugin.ReactiveSettingFetcher;
 import run.halo.app.theme.router.PageUrlUtils;
 import run.halo.app.theme.router.UrlContextListResult;
 import run.halo.equipments.finders.EquipmentFinder;
+import run.halo.equipments.finders.EquipmentSnapshotScope;
+import run.halo.equipments.index.EquipmentIndex;
+import run.halo.equipments.metrics.EquipmentMetrics;
 import run.halo.equipments.vo.EquipmentGroupVo;
 import run.halo.equipments.vo.EquipmentVo;
 
@@ -38,7 +40,15 @@ public class EquipmentRouter {
     
     private EquipmentFinder equipmentFinder;
     
-    private final ReactiveSettingFetcher settingFetcher;
+    private final EquipmentSettingsHolder settingsHolder;
+    
+    private final EquipmentIndex equipmentIndex;
+    
+    private final EquipmentPageCache pageCache;
+    
+    private final EquipmentMetrics metrics;
+    
+    private final EquipmentSnapshotScope snapshotScope;
     
     /**
      * Provides a <code>/equipments</code> route for the topic end to handle routing.
@@ -53,33 +63,61 @@ public class EquipmentRouter {
     }
     
     private HandlerFunction<ServerResponse> handlerFunction() {
-        return request -> ServerResponse.ok().render("equipments",
-            Map.of("groups", equipmentGroups(),
-                "equipments", equipmentList(request),
+        return request -> metrics.observe("router.equipments", groupPathQueryParam(request),
+            scan -> render(request), response -> 0);
+    }
+    
+    private Mono<ServerResponse> render(ServerRequest request) {
+        EquipmentSettings settings = settingsHolder.get();
+        if (settings.isRenderCache()) {
+            return cachedRender(request, settings);
+        }
+        return model(request, settings)
+            .flatMap(model -> ServerResponse.ok().render("equipments", model));
+    }
+    
+    /**
+     * Resolves the model within the request, so that groups and equipments are read from
+     * one snapshot instead of being loaded by every finder call.
+     */
+    private Mono<Map<String, Object>> model(ServerRequest request,
+        EquipmentSettings settings) {
+        return snapshotScope.bind(Mono.zip(equipmentGroups(), equipmentList(request, settings))
+            .map(tuple -> Map.of("groups", tuple.getT1(),
+                "equipments", tuple.getT2(),
                 ModelConst.TEMPLATE_ID, "equipments",
-                "title", getEquipmentsTitle()
-            )
-        );
+                "title", settings.getTitle()
+            )));
+    }
+    
+    /**
+     * Caches the model only. The rendered page also depends on the theme, site wide data
+     * and the visitor, none of which the data stamp covers, so it is rendered every time
+     * and carries no entity tag.
+     */
+    private Mono<ServerResponse> cachedRender(ServerRequest request,
+        EquipmentSettings settings) {
+        String stamp = equipmentIndex.stamp() + "-" + settings.getVersion();
+        String key = pageNumInPathVariable(request) + "-"
+            + StringUtils.defaultString(groupPathQueryParam(request));
+        return pageCache.get(stamp, key, () -> model(request, settings))
+            .flatMap(model -> ServerResponse.ok().render("equipments", model));
     }
     
-    private Mono<UrlContextListResult<EquipmentVo>> equipmentList(ServerRequest request) {
+    private Mono<UrlContextListResult<EquipmentVo>> equipmentList(ServerRequest request,
+        EquipmentSettings settings) {
         String path = request.path();
         int pageNum = pageNumInPathVariable(request);
         String group = groupPathQueryParam(request);
-        return this.settingFetcher.get("base")
-            .map(item -> item.get("pageSize").asInt(10))
-            .defaultIfEmpty(10)
-            .flatMap(pageSize -> equipmentFinder.list(pageNum, pageSize, group)
-                .map(list -> new UrlContextListResult.Builder<EquipmentVo>()
-                    .listResult(list)
-                    .nextUrl(appendGroupParam(
-                        PageUrlUtils.nextPageUrl(path, totalPage(list)), group)
-                    )
-                    .prevUrl(appendGroupParam(PageUrlUtils.prevPageUrl(path), group))
-                    .build()
+        return equipmentFinder.list(pageNum, settings.getPageSize(), group)
+            .map(list -> new UrlContextListResult.Builder<EquipmentVo>()
+                .listResult(list)
+                .nextUrl(appendGroupParam(
+                    PageUrlUtils.nextPageUrl(path, totalPage(list)), group)
                 )
+                .prevUrl(appendGroupParam(PageUrlUtils.prevPageUrl(path), group))
+                .build()
             );
-        
     }
     
     private static String appendGroupParam(String path, String group) {
@@ -100,12 +138,6 @@ public class EquipmentRouter {
             .orElse(null);
     }
     
-    Mono<String> getEquipmentsTitle() {
-        return this.settingFetcher.get("base").map(
-            setting -> setting.get("title").asText("装备")).defaultIfEmpty(
-            "装备");
-    }
-    
     private Mono<List<EquipmentGroupVo>> equipmentGroups() {
         return equipmentFinder.groupBy().collectList();
     }
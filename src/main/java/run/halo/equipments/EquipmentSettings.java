@@ -0,0 +1,47 @@
+package run.halo.equipments;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+
+/**
+ * Typed snapshot of the <code>base</code> group of the plugin settings.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Value
+public class EquipmentSettings {
+
+    public static final String DEFAULT_TITLE = "装备";
+
+    public static final EquipmentSettings DEFAULT =
+        new EquipmentSettings(DEFAULT_TITLE, ModelConst.DEFAULT_PAGE_SIZE, false, 0);
+
+    String title;
+
+    int pageSize;
+
+    boolean renderCache;
+
+    /**
+     * Increases every time the settings are reloaded, caches derived from the settings can
+     * use it as a key.
+     */
+    long version;
+
+    /**
+     * Creates settings from the <code>base</code> setting group.
+     *
+     * @param base base setting group
+     * @param version version stamp
+     * @return settings
+     */
+    public static EquipmentSettings from(JsonNode base, long version) {
+        int pageSize = base.path("pageSize").asInt(ModelConst.DEFAULT_PAGE_SIZE);
+        return new EquipmentSettings(base.path("title").asText(DEFAULT_TITLE),
+            pageSize > 0 ? pageSize : ModelConst.DEFAULT_PAGE_SIZE,
+            base.path("renderCache").asBoolean(false),
+            version
+        );
+    }
+}
@@ -0,0 +1,123 @@
+package run.halo.equipments;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import run.halo.app.extension.ConfigMap;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.GroupVersionKind;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.app.plugin.ReactiveSettingFetcher;
+import run.halo.equipments.index.ExtensionWatcher;
+
+/**
+ * Holds the current {@link EquipmentSettings}.
+ *
+ * <p>Settings are loaded once on plugin start and reloaded whenever the plugin config map
+ * changes, so that readers get them without touching the config map.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+@Component
+public class EquipmentSettingsHolder {
+
+    static final String CONFIG_MAP_NAME = "plugin-equipments-configmap";
+
+    private static final GroupVersionKind CONFIG_MAP_GVK =
+        GroupVersionKind.fromExtension(ConfigMap.class);
+
+    private final ReactiveSettingFetcher settingFetcher;
+
+    private final ReactiveExtensionClient client;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile EquipmentSettings settings = EquipmentSettings.DEFAULT;
+
+    private SettingsWatcher watcher;
+
+    public EquipmentSettingsHolder(ReactiveSettingFetcher settingFetcher,
+        ReactiveExtensionClient client) {
+        this.settingFetcher = settingFetcher;
+        this.client = client;
+    }
+
+    /**
+     * Gets the current settings.
+     *
+     * @return current settings, defaults if not loaded yet
+     */
+    public EquipmentSettings get() {
+        return settings;
+    }
+
+    /**
+     * Starts watching the plugin config map and loads the settings.
+     */
+    public synchronized void start() {
+        if (watcher != null && !watcher.isDisposed()) {
+            return;
+        }
+        watcher = new SettingsWatcher();
+        client.watch(watcher);
+        reload();
+    }
+
+    /**
+     * Stops watching the plugin config map.
+     */
+    public synchronized void stop() {
+        if (watcher != null) {
+            watcher.dispose();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Reloads the settings from the plugin config map.
+     */
+    public void reload() {
+        long stamp = version.incrementAndGet();
+        settingFetcher.get("base")
+            .map(base -> EquipmentSettings.from(base, stamp))
+            .defaultIfEmpty(new EquipmentSettings(EquipmentSettings.DEFAULT_TITLE,
+                ModelConst.DEFAULT_PAGE_SIZE, false, stamp
+            ))
+            .subscribe(this::update,
+                e -> log.error("Failed to load equipments settings.", e));
+    }
+
+    private synchronized void update(EquipmentSettings loaded) {
+        // reloads may complete out of order, keep the latest one
+        if (loaded.getVersion() > settings.getVersion()) {
+            this.settings = loaded;
+        }
+    }
+
+    class SettingsWatcher extends ExtensionWatcher {
+
+        @Override
+        public void onAdd(Extension extension) {
+            onChanged(extension);
+        }
+
+        @Override
+        public void onUpdate(Extension oldExtension, Extension newExtension) {
+            onChanged(newExtension);
+        }
+
+        @Override
+        public void onDelete(Extension extension) {
+            onChanged(extension);
+        }
+
+        private void onChanged(Extension extension) {
+            if (CONFIG_MAP_NAME.equals(extension.getMetadata().getName())
+                && CONFIG_MAP_GVK.equals(extension.groupVersionKind())) {
+                reload();
+            }
+        }
+    }
+}
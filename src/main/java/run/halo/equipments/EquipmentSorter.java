@@ -1,10 +1,14 @@
 package run.halo.equipments;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.time.Instant;
 import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
-import org.springframework.util.comparator.Comparators;
 
 /**
  * A sorter for {@link Equipment}.
@@ -15,11 +19,35 @@ import org.springframework.util.comparator.Comparators;
 public enum EquipmentSorter {
     DISPLAY_NAME,
     
-    CREATE_TIME;
+    CREATE_TIME,
+    
+    /**
+     * Sorts keyword search results by relevance, falls back to {@link #CREATE_TIME} if
+     * there is no keyword.
+     */
+    RELEVANCE;
     
     static final Function<Equipment, String> name = equipment -> equipment.getMetadata()
         .getName();
     
+    private static final Collator COLLATOR = Collator.getInstance(Locale.SIMPLIFIED_CHINESE);
+    
+    /**
+     * Creates a locale aware collation key of the display name, so that Chinese names are
+     * ordered by pronunciation rather than by code point.
+     *
+     * @param displayName display name
+     * @return a collation key, null if the display name is null
+     */
+    public static CollationKey collationKey(String displayName) {
+        if (displayName == null) {
+            return null;
+        }
+        synchronized (COLLATOR) {
+            return COLLATOR.getCollationKey(displayName);
+        }
+    }
+    
     /**
      * Converts {@link Comparator} from {@link EquipmentSorter} and ascending.
      *
@@ -42,7 +70,7 @@ public enum EquipmentSorter {
      * @return a {@link Comparator} of {@link Equipment}
      */
     static Comparator<Equipment> from(EquipmentSorter sorter) {
-        if (sorter == null) {
+        if (sorter == null || RELEVANCE.equals(sorter)) {
             return createTimeComparator();
         }
         if (CREATE_TIME.equals(sorter)) {
@@ -52,9 +80,16 @@ public enum EquipmentSorter {
         }
         
         if (DISPLAY_NAME.equals(sorter)) {
-            Function<Equipment, String> comparatorFunc = moment -> moment.getSpec()
-                .getDisplayName();
-            return Comparator.comparing(comparatorFunc, Comparators.nullsLow())
+            // every display name is collated once per comparator, comparisons only compare
+            // the cached keys
+            Map<String, CollationKey> keys = new ConcurrentHashMap<>();
+            Function<Equipment, CollationKey> comparatorFunc = equipment -> {
+                String displayName = equipment.getSpec().getDisplayName();
+                return displayName == null ? null
+                    : keys.computeIfAbsent(displayName, EquipmentSorter::collationKey);
+            };
+            return Comparator.comparing(comparatorFunc,
+                    Comparator.nullsFirst(Comparator.<CollationKey>naturalOrder()))
                 .thenComparing(name);
         }
         
@@ -0,0 +1,197 @@
+package run.halo.equipments;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ListResult;
+import run.halo.app.extension.Unstructured;
+
+/**
+ * Serializes only the requested properties of the items of a {@link ListResult}, for the
+ * <code>fields</code> query parameter, e.g.
+ * <code>fields=spec.displayName,spec.cover,spec.url</code>.
+ *
+ * <p>A path selects the property and everything beneath it, <code>metadata.name</code> is
+ * always selected. Properties of the list result itself are kept. Properties left out are
+ * never serialized, rather than serialized and pruned afterwards.
+ *
+ * <p>Each distinct set of paths is compiled into an {@link ObjectWriter} once and cached.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public final class FieldProjection {
+
+    public static final String PARAM = "fields";
+
+    private static final String FILTER_ID = "equipmentFieldProjection";
+
+    private static final String ITEMS = "items";
+
+    private static final int MAX_CACHED = 128;
+
+    private static final ObjectMapper MAPPER = Unstructured.OBJECT_MAPPER.copy()
+        .addMixIn(Object.class, ProjectionMixin.class);
+
+    private static final Map<String, FieldProjection> CACHE = new ConcurrentHashMap<>();
+
+    private final Set<String> paths;
+
+    private final ObjectWriter writer;
+
+    private FieldProjection(Set<String> paths) {
+        this.paths = Collections.unmodifiableSet(paths);
+        this.writer = MAPPER.writer(new SimpleFilterProvider()
+            .addFilter(FILTER_ID, new PathFilter()));
+    }
+
+    /**
+     * Gets the projection of the <code>fields</code> query parameter, which may be
+     * repeated or comma separated.
+     *
+     * @param queryParams query parameters
+     * @return the projection, or null if no fields are requested
+     */
+    @Nullable
+    public static FieldProjection from(MultiValueMap<String, String> queryParams) {
+        List<String> values = queryParams.get(PARAM);
+        if (values == null) {
+            return null;
+        }
+        Set<String> paths = new TreeSet<>();
+        for (String value : values) {
+            for (String path : StringUtils.split(value, ',')) {
+                String trimmed = StringUtils.strip(path.trim(), ".");
+                if (!trimmed.isEmpty()) {
+                    paths.add(trimmed);
+                }
+            }
+        }
+        if (paths.isEmpty()) {
+            return null;
+        }
+        paths.add("metadata.name");
+        String key = String.join(",", paths);
+        FieldProjection projection = CACHE.get(key);
+        if (projection == null) {
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            projection = CACHE.computeIfAbsent(key, k -> new FieldProjection(paths));
+        }
+        return projection;
+    }
+
+    /**
+     * Gets the selected paths, relative to each item.
+     *
+     * @return sorted paths
+     */
+    public Set<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Serializes a list result with its items projected.
+     *
+     * @param result list result
+     * @return json bytes
+     * @throws JsonProcessingException if the result cannot be serialized
+     */
+    public byte[] write(ListResult<?> result) throws JsonProcessingException {
+        return writer.writeValueAsBytes(result);
+    }
+
+    /**
+     * Responds the list result with its items projected.
+     *
+     * @param builder response builder
+     * @param result list result
+     * @return the response
+     */
+    public Mono<ServerResponse> respond(ServerResponse.BodyBuilder builder,
+        ListResult<?> result) {
+        return Mono.fromCallable(() -> write(result))
+            .flatMap(json -> builder
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(json));
+    }
+
+    boolean includes(String path) {
+        if (!path.startsWith(ITEMS + ".")) {
+            // properties of the list result and the items array itself
+            return true;
+        }
+        String relative = path.substring(ITEMS.length() + 1);
+        if (paths.contains(relative)) {
+            return true;
+        }
+        // ancestors of a selected path
+        String prefix = relative + ".";
+        for (String selected : paths) {
+            if (selected.startsWith(prefix)) {
+                return true;
+            }
+        }
+        // descendants of a selected path
+        for (int i = relative.indexOf('.'); i > 0; i = relative.indexOf('.', i + 1)) {
+            if (paths.contains(relative.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @JsonFilter(FILTER_ID)
+    static class ProjectionMixin {
+    }
+
+    class PathFilter extends SimpleBeanPropertyFilter {
+
+        private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider,
+            PropertyWriter writer) throws Exception {
+            String path = path(gen.getOutputContext(), writer.getName());
+            if (decisions.computeIfAbsent(path, FieldProjection.this::includes)) {
+                writer.serializeAsField(pojo, gen, provider);
+            } else if (!gen.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, gen, provider);
+            }
+        }
+    }
+
+    private static String path(JsonStreamContext context, String name) {
+        Deque<String> segments = new ArrayDeque<>();
+        segments.addFirst(name);
+        for (JsonStreamContext parent = context.getParent(); parent != null;
+            parent = parent.getParent()) {
+            if (parent.inObject() && parent.getCurrentName() != null) {
+                segments.addFirst(parent.getCurrentName());
+            }
+        }
+        return String.join(".", segments);
+    }
+}
@@ -0,0 +1,62 @@
+package run.halo.equipments;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Answers conditional GETs of list endpoints with an ETag derived from
+ * {@link EquipmentIndex#stamp()}, which changes whenever an equipment or a group changes.
+ *
+ * <p>A request whose <code>If-None-Match</code> matches gets a 304 before the list is
+ * evaluated. Responses are marked <code>no-cache</code>, so browsers revalidate every time
+ * and the console never shows stale data. No ETag is emitted until the index is ready.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class ListETagSupport {
+
+    private final EquipmentIndex equipmentIndex;
+
+    public ListETagSupport(EquipmentIndex equipmentIndex) {
+        this.equipmentIndex = equipmentIndex;
+    }
+
+    /**
+     * Responds a 304 if the list of the request is unchanged, otherwise renders it with an
+     * ETag.
+     *
+     * @param request request
+     * @param render renders the list into the given ok builder
+     * @return the response
+     */
+    public Mono<ServerResponse> respond(ServerRequest request,
+        Function<ServerResponse.BodyBuilder, Mono<ServerResponse>> render) {
+        if (!equipmentIndex.isReady()) {
+            return render.apply(ServerResponse.ok());
+        }
+        String etag = etag(request);
+        return request.checkNotModified(etag)
+            .switchIfEmpty(Mono.defer(() -> render.apply(ServerResponse.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache()))));
+    }
+
+    String etag(ServerRequest request) {
+        // query parameters are sorted, so that their order does not split the cache
+        Map<String, List<String>> params = new TreeMap<>(request.queryParams());
+        String key = equipmentIndex.stamp() + "|" + request.path() + "?" + params;
+        return "\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,31 @@
+package run.halo.equipments;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * Moves an {@link Equipment} within its group, or an {@link EquipmentGroup}, between two
+ * neighbours of the default order.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Data
+public class ReorderRequest {
+
+    @Schema(requiredMode = Schema.RequiredMode.REQUIRED,
+        description = "Name of the moved extension.")
+    private String name;
+
+    @Schema(description = "Name of the extension right before the moved one after the move, "
+        + "null if it is moved to the top.")
+    private String previous;
+
+    @Schema(description = "Name of the extension right after the moved one after the move, "
+        + "null if it is moved to the bottom.")
+    private String next;
+
+    @Schema(description = "metadata.version of the moved extension as loaded, the move is "
+        + "rejected if it has changed since.")
+    private Long version;
+}
@@ -0,0 +1,33 @@
+package run.halo.equipments;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Priorities written by a {@link ReorderRequest}.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Value
+public class ReorderResult {
+
+    @Schema(description = "Whether the priorities of the whole list were spread out again, "
+        + "because there was no gap left between the neighbours.")
+    boolean rebalanced;
+
+    @Schema(description = "Extensions whose priority was written, usually the moved one only.")
+    List<Entry> updated;
+
+    @Value
+    public static class Entry {
+
+        String name;
+
+        Integer priority;
+
+        @Schema(description = "metadata.version after the update.")
+        Long version;
+    }
+}
@@ -0,0 +1,64 @@
+package run.halo.equipments;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coalesces concurrent executions of the same query, so that a burst of identical
+ * requests runs the query once and every caller receives the same result.
+ *
+ * <p>A flight lives from its first subscriber until the query terminates. Callers joining
+ * a flight in progress share its subscription, and the result is replayed to callers
+ * joining between the emission and the removal of the flight. The query is cancelled
+ * once every caller of the flight has cancelled. Nothing is cached beyond the flight.
+ *
+ * <p>Every caller receives the same instance, so a flight should emit a bounded, immutable
+ * result, e.g. the extensions of a page, which callers map to their own views. Streams are
+ * not coalesced, since sharing them would buffer every item before the first one.
+ *
+ * @param <K> key type, normalized so that identical queries have equal keys
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public class SingleFlight<K> {
+
+    private final Map<K, Mono<?>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Executes the query of the key, or joins the flight of the key if there is one.
+     *
+     * @param key normalized query
+     * @param query creates the query, only called when a new flight takes off
+     * @param <T> result type
+     * @return a mono sharing the result of the flight
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(K key, Supplier<Mono<T>> query) {
+        return Mono.defer(() -> (Mono<T>) flights.computeIfAbsent(key,
+            k -> takeOff(k, query)));
+    }
+
+    /**
+     * Gets the number of flights in progress.
+     *
+     * @return flights count
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private <T> Mono<T> takeOff(K key, Supplier<Mono<T>> query) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> flight = Mono.defer(query)
+            .doFinally(signal -> flights.remove(key, self.get()))
+            .flux()
+            .replay(1)
+            .refCount(1)
+            .singleOrEmpty();
+        self.set(flight);
+        return flight;
+    }
+}
@@ -0,0 +1,324 @@
+package run.halo.equipments.cover;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import run.halo.app.extension.ExtensionClient;
+import run.halo.equipments.Equipment;
+
+/**
+ * Probes <code>spec.cover</code> in the background and records its dimensions, byte size,
+ * dominant color, blurhash and content revision in <code>status.cover</code>.
+ *
+ * <p>Probes run on a small pool with a bounded queue, {@link #submit(String)} refuses work
+ * when the queue is full so that the caller can retry later. A failed probe is recorded
+ * with only {@link Equipment.CoverStatus#getSource()} set, so that it is not repeated until
+ * the cover changes.
+ *
+ * <p>A probed cover is revalidated by {@link #revalidate(String)} at most once per
+ * {@link #REVALIDATE_INTERVAL} with a conditional request, so that a file replaced at the
+ * same path is probed again and gets a new revision, and with it new variant urls.
+ *
+ * <p>Only local covers are probed, see {@link CoverVariants#isLocal(String)}. They are
+ * loaded from this server at {@link LocalOrigin} without following redirects, so
+ * that a probe never reaches another host.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+@Component
+public class CoverProbe {
+
+    static final int QUEUE_CAPACITY = 256;
+
+    static final int WORKERS = 2;
+
+    static final int SAMPLE_WIDTH = 32;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    static final Duration REVALIDATE_INTERVAL = Duration.ofMinutes(10);
+
+    /**
+     * Prefix of revisions digested from the content, when the cover is served without
+     * validators.
+     */
+    private static final String DIGEST_PREFIX = "md5:";
+
+    private static final Source NOT_MODIFIED = new Source(new byte[0], "");
+
+    private final ExtensionClient client;
+
+    private final LocalOrigin localOrigin;
+
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Long> revalidated = new ConcurrentHashMap<>();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .connectTimeout(TIMEOUT)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+
+    private ThreadPoolExecutor executor;
+
+    public CoverProbe(ExtensionClient client, LocalOrigin localOrigin) {
+        this.client = client;
+        this.localOrigin = localOrigin;
+    }
+
+    /**
+     * Whether the cover of the equipment is local and has not been probed yet.
+     *
+     * @param equipment equipment
+     * @return true if a probe should be submitted
+     */
+    public static boolean needsProbe(Equipment equipment) {
+        String cover = equipment.getSpec().getCover();
+        if (!CoverVariants.isLocal(cover)) {
+            return false;
+        }
+        var status = equipment.getStatus();
+        return status == null || status.getCover() == null
+            || !Objects.equals(cover, status.getCover().getSource());
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            new CustomizableThreadFactory("equipment-cover-probe-"));
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        queued.clear();
+        revalidated.clear();
+    }
+
+    /**
+     * Submits a probe of the cover of the given equipment.
+     *
+     * @param name equipment name
+     * @return false if the queue is full or the probe is stopped
+     */
+    public synchronized boolean submit(String name) {
+        if (executor == null) {
+            return false;
+        }
+        if (!queued.add(name)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                queued.remove(name);
+                probe(name);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(name);
+            return false;
+        }
+    }
+
+    /**
+     * Submits a revalidation of the probed cover of the given equipment, unless it has been
+     * revalidated within {@link #REVALIDATE_INTERVAL}.
+     *
+     * @param name equipment name
+     */
+    public void revalidate(String name) {
+        long now = System.nanoTime();
+        Long last = revalidated.get(name);
+        if (last != null && now - last < REVALIDATE_INTERVAL.toNanos()) {
+            return;
+        }
+        revalidated.put(name, now);
+        submit(name);
+    }
+
+    /**
+     * Probes a cover that has not been probed yet, or revalidates a probed one and probes
+     * it again only if its content has changed.
+     */
+    void probe(String name) {
+        var equipment = client.fetch(Equipment.class, name).orElse(null);
+        if (equipment == null || equipment.isDeleted()
+            || !CoverVariants.isLocal(equipment.getSpec().getCover())) {
+            return;
+        }
+        boolean revalidating = !needsProbe(equipment);
+        String cover = equipment.getSpec().getCover();
+        String known = revalidating ? equipment.getStatus().getCover().getRevision() : null;
+        Equipment.CoverStatus result = new Equipment.CoverStatus();
+        result.setSource(cover);
+        try {
+            Source source = load(cover, known);
+            if (source == NOT_MODIFIED || revalidating
+                && (source == null || Objects.equals(known, source.revision()))) {
+                return;
+            }
+            if (source != null) {
+                result.setRevision(source.revision());
+                BufferedImage image = CoverThumbnailService.decode(source.body());
+                if (image != null) {
+                    result.setWidth(image.getWidth());
+                    result.setHeight(image.getHeight());
+                    result.setBytes((long) source.body().length);
+                    BufferedImage sample = CoverThumbnailService.scale(image, SAMPLE_WIDTH);
+                    result.setDominantColor(dominantColor(sample));
+                    result.setBlurhash(BlurHash.encode(sample, 4, 3));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Failed to probe cover {} of equipment {}.", cover, name, e);
+            if (revalidating) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        save(name, result);
+    }
+
+    private void save(String name, Equipment.CoverStatus result) {
+        for (int attempt = 1; ; attempt++) {
+            var equipment = client.fetch(Equipment.class, name).orElse(null);
+            if (equipment == null || equipment.isDeleted()
+                || !Objects.equals(equipment.getSpec().getCover(), result.getSource())) {
+                // the cover changed meanwhile, its own probe will follow
+                return;
+            }
+            equipment.getStatusOrDefault().setCover(result);
+            try {
+                client.update(equipment);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.warn("Failed to save the cover metadata of equipment {}.", name);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the cover, conditionally if a revision of it is known.
+     *
+     * @return the cover, {@link #NOT_MODIFIED} if the known revision is current, or null if
+     *     it can not be loaded
+     */
+    @Nullable
+    private Source load(String cover, @Nullable String known)
+        throws IOException, InterruptedException {
+        URI origin = localOrigin.get();
+        URI uri = origin.resolve(cover);
+        if (!Objects.equals(uri.getHost(), origin.getHost())
+            || uri.getPort() != origin.getPort()) {
+            // e.g. a path with a scheme-relative authority slipped through
+            return null;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET();
+        if (known != null && !known.startsWith(DIGEST_PREFIX)) {
+            request.header(isEntityTag(known) ? HttpHeaders.IF_NONE_MATCH
+                : HttpHeaders.IF_MODIFIED_SINCE, known);
+        }
+        HttpResponse<InputStream> response = httpClient.send(request.build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 304) {
+                return NOT_MODIFIED;
+            }
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            byte[] bytes = body.readNBytes(CoverThumbnailService.MAX_SOURCE_BYTES + 1);
+            if (bytes.length > CoverThumbnailService.MAX_SOURCE_BYTES) {
+                return null;
+            }
+            return new Source(bytes, revision(response, bytes));
+        }
+    }
+
+    /**
+     * Gets the revision of the loaded cover, its entity tag or last modification date, or
+     * a digest of its content if it is served without either.
+     */
+    private static String revision(HttpResponse<?> response, byte[] body) {
+        return response.headers().firstValue(HttpHeaders.ETAG)
+            .or(() -> response.headers().firstValue(HttpHeaders.LAST_MODIFIED))
+            .orElseGet(() -> DIGEST_PREFIX + DigestUtils.md5DigestAsHex(body));
+    }
+
+    private static boolean isEntityTag(String revision) {
+        return revision.startsWith("\"") || revision.startsWith("W/");
+    }
+
+    private record Source(byte[] body, String revision) {
+    }
+
+    /**
+     * Picks the most frequent color, quantized to 4 bits per channel, and averages the
+     * pixels of that bucket.
+     */
+    static String dominantColor(BufferedImage sample) {
+        int[] counts = new int[4096];
+        long[][] sums = new long[4096][3];
+        for (int y = 0; y < sample.getHeight(); y++) {
+            for (int x = 0; x < sample.getWidth(); x++) {
+                int argb = sample.getRGB(x, y);
+                if ((argb >>> 24) < 128) {
+                    continue;
+                }
+                int r = (argb >> 16) & 0xff;
+                int g = (argb >> 8) & 0xff;
+                int b = argb & 0xff;
+                int bucket = (r >> 4) << 8 | (g >> 4) << 4 | (b >> 4);
+                counts[bucket]++;
+                sums[bucket][0] += r;
+                sums[bucket][1] += g;
+                sums[bucket][2] += b;
+            }
+        }
+        int best = 0;
+        for (int bucket = 1; bucket < counts.length; bucket++) {
+            if (counts[bucket] > counts[best]) {
+                best = bucket;
+            }
+        }
+        if (counts[best] == 0) {
+            return null;
+        }
+        return String.format("#%02x%02x%02x", sums[best][0] / counts[best],
+            sums[best][1] / counts[best], sums[best][2] / counts[best]);
+    }
+}
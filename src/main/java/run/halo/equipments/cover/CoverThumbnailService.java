@@ -0,0 +1,265 @@
+package run.halo.equipments.cover;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Generates resized variants of local cover attachments.
+ *
+ * <p>Variants are generated lazily on a bounded worker pool, never on the event loop, and
+ * kept in a {@link CoverVariantCache} under the temporary directory, keyed by the cover and
+ * its probed revision so that a replaced file is not served from the cache once it has
+ * been probed again. Concurrent requests of the same variant share a single generation.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+@Component
+public class CoverThumbnailService {
+
+    static final long MAX_CACHE_BYTES = 256L * 1024 * 1024;
+
+    static final int MAX_SOURCE_BYTES = 16 * 1024 * 1024;
+
+    static final long MAX_SOURCE_PIXELS = 50_000_000L;
+
+    private static final int WORKERS = Math.max(2,
+        Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final int QUEUED_TASKS = 64;
+
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final CoverVariantCache cache = new CoverVariantCache(
+        Path.of(System.getProperty("java.io.tmpdir"), "halo-plugin-equipments", "covers"),
+        MAX_CACHE_BYTES);
+
+    private final Map<String, Mono<Variant>> pending = new ConcurrentHashMap<>();
+
+    private final WebClient webClient = WebClient.builder()
+        .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_SOURCE_BYTES))
+        .build();
+
+    private volatile Scheduler scheduler;
+
+    /**
+     * Creates the worker pool and adopts the variants cached by a previous run.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Schedulers.newBoundedElastic(WORKERS, QUEUED_TASKS, "equipment-covers");
+        scheduler.schedule(cache::load);
+    }
+
+    /**
+     * Disposes the worker pool, cached files are kept for the next run.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.dispose();
+            scheduler = null;
+        }
+        pending.clear();
+    }
+
+    /**
+     * Gets a variant of the cover, generating it if it is not cached.
+     *
+     * @param origin origin of this site to load the cover from
+     * @param cover local cover path, see {@link CoverVariants#isLocal(String)}
+     * @param revision probed revision of the cover, see {@link CoverVariants#revision}
+     * @param width normalized width
+     * @return the variant, or empty if the cover is not an image that can be resized
+     */
+    public Mono<Variant> variant(URI origin, String cover, @Nullable String revision,
+        int width) {
+        String key = DigestUtils.md5DigestAsHex((cover + "#" + revision + "@" + width)
+            .getBytes(StandardCharsets.UTF_8));
+        return Mono.defer(() -> {
+            Variant cached = cached(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return pending.computeIfAbsent(key, k -> generate(origin, cover, width, k)
+                .doFinally(signal -> pending.remove(k))
+                .cache());
+        });
+    }
+
+    private Variant cached(String key) {
+        for (MediaType mediaType : new MediaType[] {MediaType.IMAGE_JPEG,
+            MediaType.IMAGE_PNG}) {
+            Path file = cache.get(key + "." + mediaType.getSubtype());
+            if (file != null) {
+                return new Variant(file, mediaType, key);
+            }
+        }
+        return null;
+    }
+
+    private Mono<Variant> generate(URI origin, String cover, int width, String key) {
+        Scheduler workers = scheduler;
+        if (workers == null) {
+            return Mono.error(new IllegalStateException("Cover thumbnails are stopped."));
+        }
+        return webClient.get()
+            .uri(origin.resolve(cover))
+            .retrieve()
+            .bodyToMono(byte[].class)
+            .publishOn(workers)
+            .flatMap(source -> Mono.justOrEmpty(resize(source, width)))
+            .map(image -> {
+                boolean alpha = image.getColorModel().hasAlpha();
+                MediaType mediaType = alpha ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+                byte[] encoded = alpha ? encodePng(image) : encodeJpeg(image);
+                Path file = cache.put(key + "." + mediaType.getSubtype(), encoded);
+                return new Variant(file, mediaType, key);
+            })
+            .doOnError(e -> log.warn("Failed to generate a {}px variant of cover {}.", width,
+                cover, e));
+    }
+
+    static BufferedImage resize(byte[] source, int width) {
+        BufferedImage image = decode(source);
+        return image == null ? null : scale(image, width);
+    }
+
+    /**
+     * Scales the image down to the given width, keeping the aspect ratio.
+     *
+     * @param image image
+     * @param width target width, images narrower than it are only redrawn
+     * @return a new RGB or ARGB image
+     */
+    static BufferedImage scale(BufferedImage image, int width) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+            : BufferedImage.TYPE_INT_RGB;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        if (currentWidth <= width) {
+            return redraw(image, currentWidth, currentHeight, type);
+        }
+        // halve step by step, a single large downscale with bilinear sampling aliases
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = Math.max(1,
+                (int) Math.round((double) image.getHeight() * nextWidth / image.getWidth()));
+            image = redraw(image, nextWidth, nextHeight, type);
+            currentWidth = nextWidth;
+        } while (currentWidth > width);
+        return image;
+    }
+
+    /**
+     * Decodes an image, refusing images of more than {@link #MAX_SOURCE_PIXELS}.
+     *
+     * @param source encoded image
+     * @return the image or null if it can not be decoded
+     */
+    static BufferedImage decode(byte[] source) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(
+            new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                // not a format ImageIO can decode, e.g. svg or webp
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static BufferedImage redraw(BufferedImage source, int width, int height,
+        int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+                RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A generated variant.
+     *
+     * @param file cached file
+     * @param mediaType media type of the file
+     * @param etag entity tag of the variant
+     */
+    public record Variant(Path file, MediaType mediaType, String etag) {
+    }
+}
@@ -0,0 +1,140 @@
+package run.halo.equipments.cover;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+/**
+ * A disk cache of cover variants, bounded by the total size of the files.
+ *
+ * <p>Files are tracked in access order and the least recently used ones are deleted once
+ * {@link #maxBytes} is exceeded. Files left by a previous run are adopted on
+ * {@link #load()}, oldest first.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+class CoverVariantCache {
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final Map<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    CoverVariantCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void load() {
+        sizes.clear();
+        totalBytes = 0;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> stream = Files.list(directory)) {
+                files = stream.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(CoverVariantCache::lastModified))
+                    .toList();
+            }
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                track(file.getFileName().toString(), Files.size(file));
+            }
+            evict();
+        } catch (IOException e) {
+            log.warn("Failed to load the cover variant cache from {}.", directory, e);
+        }
+    }
+
+    /**
+     * Gets a cached file.
+     *
+     * @param fileName file name
+     * @return the path or null if absent
+     */
+    @Nullable
+    synchronized Path get(String fileName) {
+        if (!sizes.containsKey(fileName)) {
+            return null;
+        }
+        Path file = directory.resolve(fileName);
+        if (!Files.exists(file)) {
+            totalBytes -= sizes.remove(fileName);
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Writes a file into the cache, evicting the least recently used files if needed.
+     *
+     * @param fileName file name
+     * @param content file content
+     * @return the path of the file
+     */
+    Path put(String fileName, byte[] content) {
+        Path file = directory.resolve(fileName);
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, fileName, ".tmp");
+            Files.write(tmp, content);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            track(fileName, content.length);
+            evict();
+        }
+        return file;
+    }
+
+    private void track(String fileName, long size) {
+        Long previous = sizes.put(fileName, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = sizes.entrySet().iterator();
+        // keep the most recent file even if it alone exceeds the limit
+        while (totalBytes > maxBytes && sizes.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to evict cover variant {}.", eldest.getKey(), e);
+            }
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class)
+                .lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package run.halo.equipments.cover;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.util.UriUtils;
+import run.halo.equipments.Equipment;
+
+/**
+ * Urls of the resized variants of <code>spec.cover</code>.
+ *
+ * <p>Only covers stored on this site, i.e. paths like <code>/upload/a.jpg</code>, have
+ * variants. The url carries a version derived from the cover and the revision of its
+ * content probed by {@link CoverProbe}, so that a file replaced at the same path gets new
+ * urls once it has been probed again.
+ *
+ * <p>Urls are built once per equipment and cover revision and memoized, since every
+ * equipment view carries them.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public enum CoverVariants {
+    ;
+
+    /**
+     * Widths of the variants, requested widths are rounded up to one of them.
+     */
+    public static final int[] WIDTHS = {160, 320, 640, 960, 1280};
+
+    public static final int DEFAULT_WIDTH = 640;
+
+    static final String PATH_PREFIX = "/plugins/PluginEquipments/covers/";
+
+    private static final int MAX_MEMOIZED = 4096;
+
+    private static final Map<String, Memoized> MEMOIZED = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the cover is a local attachment that variants can be generated for.
+     *
+     * @param cover cover
+     * @return true if the cover is a path on this site
+     */
+    public static boolean isLocal(@Nullable String cover) {
+        return StringUtils.startsWith(cover, "/") && !StringUtils.startsWith(cover, "//");
+    }
+
+    /**
+     * Gets the metadata probed for the current cover, metadata of a previous cover is
+     * ignored until the current one has been probed.
+     *
+     * @param equipment equipment
+     * @return the probed metadata, or null if the current cover has not been probed
+     */
+    @Nullable
+    public static Equipment.CoverStatus probed(Equipment equipment) {
+        var status = equipment.getStatus();
+        if (status == null || status.getCover() == null || equipment.getSpec() == null
+            || !StringUtils.equals(equipment.getSpec().getCover(),
+            status.getCover().getSource())) {
+            return null;
+        }
+        return status.getCover();
+    }
+
+    /**
+     * Gets the revision of the cover content probed for the current cover.
+     *
+     * @param equipment equipment
+     * @return the probed revision, or null if the current cover has not been probed
+     */
+    @Nullable
+    public static String revision(Equipment equipment) {
+        Equipment.CoverStatus probed = probed(equipment);
+        return probed == null ? null : probed.getRevision();
+    }
+
+    /**
+     * Gets the version of the cover that variant urls are bound to.
+     *
+     * @param cover cover
+     * @param revision revision of the cover content, null if not probed yet
+     * @return a short digest of the cover and its revision
+     */
+    public static String version(String cover, @Nullable String revision) {
+        String versioned = revision == null ? cover : cover + "#" + revision;
+        return DigestUtils.md5DigestAsHex(versioned.getBytes(StandardCharsets.UTF_8))
+            .substring(0, 8);
+    }
+
+    /**
+     * Rounds the requested width up to a supported variant width.
+     *
+     * @param width requested width
+     * @return a width of {@link #WIDTHS}
+     */
+    public static int normalizeWidth(int width) {
+        for (int candidate : WIDTHS) {
+            if (width <= candidate) {
+                return candidate;
+            }
+        }
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    /**
+     * Gets the variant urls of the cover of the equipment.
+     *
+     * @param equipment equipment
+     * @return the memoized urls, {@link Urls#NONE} if the cover is not local
+     */
+    public static Urls of(Equipment equipment) {
+        var spec = equipment.getSpec();
+        if (spec == null || !isLocal(spec.getCover())) {
+            return Urls.NONE;
+        }
+        String name = equipment.getMetadata().getName();
+        String cover = spec.getCover();
+        String revision = revision(equipment);
+        Memoized memoized = MEMOIZED.get(name);
+        if (memoized != null && memoized.cover().equals(cover)
+            && Objects.equals(memoized.revision(), revision)) {
+            return memoized.urls();
+        }
+        Urls urls = build(name, version(cover, revision));
+        if (MEMOIZED.size() >= MAX_MEMOIZED) {
+            // names of deleted equipments are never looked up again
+            MEMOIZED.clear();
+        }
+        MEMOIZED.put(name, new Memoized(cover, revision, urls));
+        return urls;
+    }
+
+    private static Urls build(String name, String version) {
+        String path = PATH_PREFIX + UriUtils.encodePathSegment(name, StandardCharsets.UTF_8);
+        Map<Integer, String> variants = new LinkedHashMap<>();
+        StringJoiner srcset = new StringJoiner(", ");
+        for (int width : WIDTHS) {
+            String url = path + "?w=" + width + "&v=" + version;
+            variants.put(width, url);
+            srcset.add(url + " " + width + "w");
+        }
+        return new Urls(Collections.unmodifiableMap(variants), srcset.toString());
+    }
+
+    private record Memoized(String cover, @Nullable String revision, Urls urls) {
+    }
+
+    /**
+     * Variant urls of a cover.
+     *
+     * @param variants variant urls by width in ascending order
+     * @param srcset a <code>srcset</code> attribute value of the variants, null if none
+     */
+    public record Urls(Map<Integer, String> variants, @Nullable String srcset) {
+
+        public static final Urls NONE = new Urls(Map.of(), null);
+    }
+}
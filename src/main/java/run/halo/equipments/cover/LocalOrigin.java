@@ -0,0 +1,63 @@
+package run.halo.equipments.cover;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * The origin local covers are loaded from, shared by {@link CoverProbe} and the cover
+ * route so that both reach the same server.
+ *
+ * <p>The origin is taken from the local address of the latest cover request, which is
+ * the address Halo actually listens on. Until a request has been served, it falls back to
+ * the loopback interface and the port found in the environment, which the plugin
+ * environment does not always carry.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class LocalOrigin {
+
+    private final URI fallback;
+
+    private volatile URI observed;
+
+    public LocalOrigin(Environment environment) {
+        this.fallback = URI.create("http://127.0.0.1:" + environment.getProperty(
+            "local.server.port", environment.getProperty("server.port", "8090")));
+    }
+
+    /**
+     * Gets the origin of this server.
+     *
+     * @return the observed origin, or the fallback before any request has been served
+     */
+    public URI get() {
+        URI current = observed;
+        return current == null ? fallback : current;
+    }
+
+    /**
+     * Records the local address a request arrived at. The address of the socket is used
+     * rather than the host header, so that a forged host can not point covers elsewhere.
+     *
+     * @param local local address of the request
+     * @return the origin of this server
+     */
+    public URI observe(InetSocketAddress local) {
+        InetAddress address = local.getAddress();
+        String host = address.isAnyLocalAddress() ? "127.0.0.1"
+            // without the scope of a link-local address, which a uri can not carry
+            : address instanceof Inet6Address
+            ? "[" + StringUtils.substringBefore(address.getHostAddress(), "%") + "]"
+            : address.getHostAddress();
+        URI origin = URI.create("http://" + host + ":" + local.getPort());
+        observed = origin;
+        return origin;
+    }
+}
@@ -0,0 +1,63 @@
+package run.halo.equipments.feed;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.lang.Nullable;
+import run.halo.app.extension.Extension;
+
+/**
+ * A change of an {@link run.halo.equipments.Equipment} or a
+ * {@link run.halo.equipments.EquipmentGroup} published by {@link EquipmentChangeFeed}.
+ *
+ * @param sequence position in the feed, increasing by one per change
+ * @param type change type
+ * @param kind extension kind, null for {@link Type#RESET}
+ * @param name extension name, null for {@link Type#RESET}
+ * @param object the extension after the change, or its last state if deleted
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public record ChangeEvent(long sequence, Type type, @Nullable String kind,
+                          @Nullable String name,
+                          @Schema(implementation = Object.class) @Nullable Extension object) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /**
+         * Changes were dropped, because the subscriber fell too far behind or resumed from
+         * a position no longer kept. Local state must be reloaded.
+         */
+        RESET
+    }
+
+    static ChangeEvent reset(long sequence) {
+        return new ChangeEvent(sequence, Type.RESET, null, null, null);
+    }
+
+    String key() {
+        return kind + "/" + name;
+    }
+
+    /**
+     * Merges a later change of the same extension into this one, so that a subscriber
+     * receives only the net change.
+     *
+     * @param later later change
+     * @return the net change, or null if the changes cancel out
+     */
+    @Nullable
+    ChangeEvent coalesce(ChangeEvent later) {
+        if (type == Type.CREATED) {
+            if (later.type() == Type.DELETED) {
+                return null;
+            }
+            return new ChangeEvent(later.sequence(), Type.CREATED, kind, name, later.object());
+        }
+        if (type == Type.DELETED && later.type() == Type.CREATED) {
+            // recreated under the same name
+            return new ChangeEvent(later.sequence(), Type.UPDATED, kind, name, later.object());
+        }
+        return later;
+    }
+}
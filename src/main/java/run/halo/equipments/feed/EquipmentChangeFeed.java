@@ -0,0 +1,240 @@
+package run.halo.equipments.feed;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.index.ExtensionWatcher;
+
+/**
+ * Fans out changes of {@link Equipment} and {@link EquipmentGroup} from a single watcher
+ * to many subscribers.
+ *
+ * <p>Every change gets the next sequence number. The last {@value #HISTORY_SIZE} changes
+ * are kept, so that a subscriber can resume after a sequence number it has seen. Sequence
+ * numbers are only comparable within one {@link #epoch()}, which starts anew whenever the
+ * feed is started.
+ *
+ * <p>Each subscriber has its own bounded buffer of pending changes, keyed by extension, so
+ * that changes of the same extension coalesce into the net change while the subscriber is
+ * behind. A subscriber with more than {@value #BUFFER_SIZE} extensions pending gets a
+ * {@link ChangeEvent.Type#RESET} instead and is expected to reload.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+@Component
+public class EquipmentChangeFeed {
+
+    static final int HISTORY_SIZE = 1024;
+
+    static final int BUFFER_SIZE = 256;
+
+    private final ReactiveExtensionClient client;
+
+    private final Object lock = new Object();
+
+    private final ArrayDeque<ChangeEvent> history = new ArrayDeque<>(HISTORY_SIZE);
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    private volatile String epoch = newEpoch();
+
+    private long sequence;
+
+    private FeedWatcher watcher;
+
+    public EquipmentChangeFeed(ReactiveExtensionClient client) {
+        this.client = client;
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (watcher != null && !watcher.isDisposed()) {
+                return;
+            }
+            epoch = newEpoch();
+            sequence = 0;
+            history.clear();
+            watcher = new FeedWatcher();
+            client.watch(watcher);
+        }
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            if (watcher != null) {
+                watcher.dispose();
+                watcher = null;
+            }
+            history.clear();
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.sink.complete();
+        }
+    }
+
+    /**
+     * Gets the epoch sequence numbers belong to.
+     *
+     * @return current epoch
+     */
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * Subscribes to changes.
+     *
+     * @param epoch epoch of <code>after</code>, null to receive only new changes
+     * @param after last sequence number seen by the subscriber
+     * @return an infinite flux of changes, starting with a {@link ChangeEvent.Type#RESET}
+     *     if changes after <code>after</code> are no longer kept
+     */
+    public Flux<ChangeEvent> subscribe(@Nullable String epoch, long after) {
+        return Flux.create(sink -> {
+            Subscriber subscriber = new Subscriber(sink);
+            sink.onRequest(n -> subscriber.drain());
+            sink.onDispose(() -> subscribers.remove(subscriber));
+            synchronized (lock) {
+                if (epoch != null) {
+                    replay(subscriber, epoch, after);
+                }
+                subscribers.add(subscriber);
+            }
+            subscriber.drain();
+        });
+    }
+
+    private void replay(Subscriber subscriber, String epoch, long after) {
+        ChangeEvent oldest = history.peekFirst();
+        long oldestKept = oldest == null ? sequence + 1 : oldest.sequence();
+        if (!this.epoch.equals(epoch) || after < oldestKept - 1 || after > sequence) {
+            subscriber.overflow(sequence);
+            return;
+        }
+        for (ChangeEvent event : history) {
+            if (event.sequence() > after) {
+                subscriber.enqueue(event);
+            }
+        }
+    }
+
+    void publish(ChangeEvent.Type type, Extension extension) {
+        List<Subscriber> targets;
+        synchronized (lock) {
+            ChangeEvent event = new ChangeEvent(++sequence, type,
+                extension.getKind(), extension.getMetadata().getName(), extension);
+            if (history.size() == HISTORY_SIZE) {
+                history.pollFirst();
+            }
+            history.addLast(event);
+            targets = new ArrayList<>(subscribers);
+            for (Subscriber subscriber : targets) {
+                subscriber.enqueue(event);
+            }
+        }
+        // emit outside the feed lock, a slow subscriber must not hold up the others
+        for (Subscriber subscriber : targets) {
+            subscriber.drain();
+        }
+    }
+
+    private static String newEpoch() {
+        return Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    static class Subscriber {
+
+        private final FluxSink<ChangeEvent> sink;
+
+        private final LinkedHashMap<String, ChangeEvent> pending = new LinkedHashMap<>();
+
+        private long resetSequence = -1;
+
+        Subscriber(FluxSink<ChangeEvent> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void enqueue(ChangeEvent event) {
+            if (resetSequence >= 0) {
+                // the reset covers everything up to its delivery
+                resetSequence = event.sequence();
+                return;
+            }
+            String key = event.key();
+            ChangeEvent previous = pending.remove(key);
+            ChangeEvent merged = previous == null ? event : previous.coalesce(event);
+            if (merged != null) {
+                pending.put(key, merged);
+            }
+            if (pending.size() > BUFFER_SIZE) {
+                overflow(event.sequence());
+            }
+        }
+
+        synchronized void overflow(long sequence) {
+            pending.clear();
+            resetSequence = sequence;
+        }
+
+        synchronized void drain() {
+            while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                if (resetSequence >= 0) {
+                    long reset = resetSequence;
+                    resetSequence = -1;
+                    sink.next(ChangeEvent.reset(reset));
+                    continue;
+                }
+                Iterator<ChangeEvent> iterator = pending.values().iterator();
+                if (!iterator.hasNext()) {
+                    return;
+                }
+                ChangeEvent event = iterator.next();
+                iterator.remove();
+                sink.next(event);
+            }
+        }
+    }
+
+    class FeedWatcher extends ExtensionWatcher {
+
+        @Override
+        public void onAdd(Extension extension) {
+            onChange(ChangeEvent.Type.CREATED, extension);
+        }
+
+        @Override
+        public void onUpdate(Extension oldExtension, Extension newExtension) {
+            onChange(ChangeEvent.Type.UPDATED, newExtension);
+        }
+
+        @Override
+        public void onDelete(Extension extension) {
+            onChange(ChangeEvent.Type.DELETED, extension);
+        }
+
+        private void onChange(ChangeEvent.Type type, Extension extension) {
+            Extension converted = convert(extension, Equipment.class);
+            if (converted == null) {
+                converted = convert(extension, EquipmentGroup.class);
+            }
+            if (converted != null) {
+                publish(type, converted);
+            }
+        }
+    }
+}
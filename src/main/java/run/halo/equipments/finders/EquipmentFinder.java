@@ -1,9 +1,14 @@
 package run.halo.equipments.finders;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
+import run.halo.equipments.CursorListResult;
 import run.halo.equipments.vo.EquipmentGroupVo;
+import run.halo.equipments.vo.EquipmentSlimVo;
 import run.halo.equipments.vo.EquipmentVo;
 
 
@@ -40,18 +45,75 @@ public interface EquipmentFinder {
      */
     Mono<ListResult<EquipmentVo>> list(Integer page, Integer size, String group);
     
+    /**
+     * List equipments by keyset pagination, cheaper than {@link #list(Integer, Integer,
+     * String)} for deep pages and infinite scroll.
+     *
+     * @param cursor <code>nextCursor</code> of the previous page, null for the first page
+     * @param size page size
+     * @param group group name, null for all groups
+     * @return a mono of cursor list result
+     */
+    Mono<CursorListResult<EquipmentVo>> listAfter(String cursor, Integer size, String group);
+    
     /**
      * List equipments by group.
      *
-     * @param group group name
+     * @param group group name, ungrouped equipments will be returned if null
      * @return a flux of equipment vo
      */
     Flux<EquipmentVo> listBy(String group);
     
+    /**
+     * List equipments by group as slim vo, which only carries the name, display name, url
+     * and cover.
+     *
+     * @param group group name, ungrouped equipments will be returned if null
+     * @return a flux of equipment slim vo
+     */
+    Flux<EquipmentSlimVo> listSlimBy(String group);
+    
     /**
      * List all groups.
      *
      * @return a flux of equipment group vo
      */
     Flux<EquipmentGroupVo> groupBy();
+    
+    /**
+     * List all groups with at most <code>limitPerGroup</code> equipments each, for widgets
+     * showing the first few equipments of every group. The equipment count of each group
+     * is still the full count.
+     *
+     * @param limitPerGroup max equipments per group
+     * @return a flux of equipment group vo
+     */
+    Flux<EquipmentGroupVo> groupBy(int limitPerGroup);
+    
+    /**
+     * List equipments of several groups in a single pass.
+     *
+     * @param groups group names
+     * @return a mono of equipments keyed by group name, in the order of the given groups
+     */
+    Mono<Map<String, List<EquipmentVo>>> listByGroups(Collection<String> groups);
+    
+    /**
+     * List equipments of several groups in a single pass, with at most
+     * <code>limitPerGroup</code> equipments each.
+     *
+     * @param groups group names
+     * @param limitPerGroup max equipments per group
+     * @return a mono of equipments keyed by group name, in the order of the given groups
+     */
+    Mono<Map<String, List<EquipmentVo>>> listByGroups(Collection<String> groups,
+        int limitPerGroup);
+    
+    /**
+     * List the most recently created equipments.
+     *
+     * @param size max equipments
+     * @return a flux of equipment vo, newest first
+     */
+    Flux<EquipmentVo> latest(int size);
 }
@@ -0,0 +1,80 @@
+package run.halo.equipments.finders;
+
+import java.util.Collections;
+import java.util.List;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Groups and equipments loaded once for a request, so that every finder call made while
+ * rendering the request reads the same data instead of loading it again.
+ *
+ * <p>A snapshot is bound to the Reactor {@link reactor.util.context.Context} of a request by
+ * {@link EquipmentSnapshotScope} and loaded lazily by the first finder call needing it.
+ * Equipments are read from an immutable {@link EquipmentIndex.Snapshot}, which is taken
+ * from the index as is, so binding a snapshot costs nothing per equipment.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public final class EquipmentSnapshot {
+
+    private final List<EquipmentGroup> groups;
+
+    private final EquipmentIndex.Snapshot equipments;
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param groups groups in default order
+     * @param equipments equipments, see {@link EquipmentIndex#snapshot()}
+     */
+    EquipmentSnapshot(List<EquipmentGroup> groups, EquipmentIndex.Snapshot equipments) {
+        this.groups = Collections.unmodifiableList(groups);
+        this.equipments = equipments;
+    }
+
+    /**
+     * Gets the snapshot bound to the given context.
+     *
+     * @param context subscriber context
+     * @return a mono loading the snapshot, or null if no snapshot is bound
+     */
+    @Nullable
+    public static Mono<EquipmentSnapshot> from(ContextView context) {
+        return context.<Mono<EquipmentSnapshot>>getOrEmpty(EquipmentSnapshot.class)
+            .orElse(null);
+    }
+
+    /**
+     * Lists all groups in default order.
+     *
+     * @return an unmodifiable sorted list
+     */
+    public List<EquipmentGroup> groups() {
+        return groups;
+    }
+
+    /**
+     * Lists all equipments in default order, including ungrouped ones.
+     *
+     * @return an unmodifiable sorted list
+     */
+    public List<Equipment> listAll() {
+        return equipments.listAll();
+    }
+
+    /**
+     * Lists equipments of the given group in default order.
+     *
+     * @param groupName group name, ungrouped equipments will be returned if null
+     * @return an unmodifiable sorted list
+     */
+    public List<Equipment> listBy(@Nullable String groupName) {
+        return equipments.listBy(groupName);
+    }
+}
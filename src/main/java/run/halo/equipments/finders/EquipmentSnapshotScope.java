@@ -0,0 +1,59 @@
+package run.halo.equipments.finders;
+
+import java.util.List;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.finders.impl.DefaultOrder;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Binds an {@link EquipmentSnapshot} to the Reactor context of a request.
+ *
+ * <p>Equipments come from the current {@link EquipmentIndex#snapshot()}, or from a
+ * snapshot built by {@link EquipmentIndex.Snapshot#of} while the index is not ready, so
+ * that both leave out the same equipments.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentSnapshotScope {
+
+    private final ReactiveExtensionClient client;
+
+    private final EquipmentIndex equipmentIndex;
+
+    public EquipmentSnapshotScope(ReactiveExtensionClient client,
+        EquipmentIndex equipmentIndex) {
+        this.client = client;
+        this.equipmentIndex = equipmentIndex;
+    }
+
+    /**
+     * Makes finder calls subscribed within the given mono share one snapshot. A snapshot
+     * already bound by an enclosing scope is kept.
+     *
+     * @param mono mono calling finders
+     * @param <T> result type
+     * @return the mono with a snapshot bound to its context
+     */
+    public <T> Mono<T> bind(Mono<T> mono) {
+        return mono.contextWrite(context -> context.hasKey(EquipmentSnapshot.class) ? context
+            : context.put(EquipmentSnapshot.class, load().cache()));
+    }
+
+    private Mono<EquipmentSnapshot> load() {
+        Mono<EquipmentIndex.Snapshot> equipments = Mono.defer(() -> equipmentIndex.isReady()
+            ? Mono.just(equipmentIndex.snapshot())
+            : client.list(Equipment.class, null, null).collectList()
+                .map(EquipmentIndex.Snapshot::of));
+        Mono<List<EquipmentGroup>> groups = client.list(EquipmentGroup.class, null, null)
+            .collectList()
+            .doOnNext(DefaultOrder::sortGroups);
+        return Mono.zip(groups, equipments)
+            .map(tuple -> new EquipmentSnapshot(tuple.getT1(), tuple.getT2()));
+    }
+}
@@ -0,0 +1,63 @@
+package run.halo.equipments.finders.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the first <code>limit</code> elements offered in the order of a comparator, in
+ * <code>O(log limit)</code> per offer and <code>O(limit)</code> memory.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+class BoundedHeap<T> {
+
+    private final int limit;
+
+    private final Comparator<? super T> comparator;
+
+    /**
+     * The last kept element is on top, so that it can be evicted by a smaller one.
+     */
+    private final PriorityQueue<T> heap;
+
+    private int offered;
+
+    BoundedHeap(int limit, Comparator<? super T> comparator) {
+        this.limit = Math.max(limit, 0);
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.min(this.limit, 64) + 1,
+            comparator.reversed());
+    }
+
+    void offer(T element) {
+        offered++;
+        if (limit == 0) {
+            return;
+        }
+        if (heap.size() < limit) {
+            heap.add(element);
+        } else if (comparator.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    /**
+     * Gets the number of elements offered, including the evicted ones.
+     */
+    int offered() {
+        return offered;
+    }
+
+    /**
+     * Gets the kept elements in the order of the comparator.
+     */
+    List<T> toSortedList() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
@@ -0,0 +1,195 @@
+package run.halo.equipments.finders.impl;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.lang.Nullable;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+
+/**
+ * The default orders of equipments and groups, priority first with missing priorities
+ * first, then creation time, then name. Equipments are newest first, groups oldest first.
+ *
+ * <p>The comparators read the primitive keys straight from the extensions and are shared
+ * by the index sets, the per-group merge and the bounded heaps, which order one element
+ * at a time. Lists collected whole, such as the group listings, the members of a reorder
+ * and the snapshot built before the index is ready, are sorted by
+ * {@link #sortEquipments(List)} and {@link #sortGroups(List)} instead, which extract the
+ * keys into primitive arrays once and sort an index permutation over them, so that no
+ * comparison unboxes or allocates.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public enum DefaultOrder {
+    ;
+
+    static final Comparator<Equipment> EQUIPMENTS = DefaultOrder::compareEquipments;
+
+    static final Comparator<EquipmentGroup> GROUPS = DefaultOrder::compareGroups;
+
+    /**
+     * Sorts equipments in place like {@link EquipmentFInderImpl#defaultEquipmentComparator()}.
+     *
+     * @param equipments mutable equipments
+     */
+    public static void sortEquipments(List<Equipment> equipments) {
+        int size = equipments.size();
+        if (size < 2) {
+            return;
+        }
+        Keys keys = new Keys(size, true);
+        for (int i = 0; i < size; i++) {
+            Equipment equipment = equipments.get(i);
+            keys.set(i, equipment.getSpec().getPriority(),
+                equipment.getMetadata().getCreationTimestamp(),
+                equipment.getMetadata().getName());
+        }
+        keys.sort(equipments);
+    }
+
+    /**
+     * Sorts groups in place like {@link EquipmentFInderImpl#defaultGroupComparator()}.
+     *
+     * @param groups mutable groups
+     */
+    public static void sortGroups(List<EquipmentGroup> groups) {
+        int size = groups.size();
+        if (size < 2) {
+            return;
+        }
+        Keys keys = new Keys(size, false);
+        for (int i = 0; i < size; i++) {
+            EquipmentGroup group = groups.get(i);
+            keys.set(i, group.getSpec().getPriority(),
+                group.getMetadata().getCreationTimestamp(), group.getMetadata().getName());
+        }
+        keys.sort(groups);
+    }
+
+    private static int compareEquipments(Equipment a, Equipment b) {
+        int result = Long.compare(priorityKey(a.getSpec().getPriority()),
+            priorityKey(b.getSpec().getPriority()));
+        if (result != 0) {
+            return result;
+        }
+        result = b.getMetadata().getCreationTimestamp()
+            .compareTo(a.getMetadata().getCreationTimestamp());
+        if (result != 0) {
+            return result;
+        }
+        return a.getMetadata().getName().compareTo(b.getMetadata().getName());
+    }
+
+    private static int compareGroups(EquipmentGroup a, EquipmentGroup b) {
+        int result = Long.compare(priorityKey(a.getSpec().getPriority()),
+            priorityKey(b.getSpec().getPriority()));
+        if (result != 0) {
+            return result;
+        }
+        result = a.getMetadata().getCreationTimestamp()
+            .compareTo(b.getMetadata().getCreationTimestamp());
+        if (result != 0) {
+            return result;
+        }
+        return a.getMetadata().getName().compareTo(b.getMetadata().getName());
+    }
+
+    /**
+     * Widens the priority, so that a missing one sorts before every int.
+     */
+    private static long priorityKey(@Nullable Integer priority) {
+        return priority == null ? Long.MIN_VALUE : priority;
+    }
+
+    /**
+     * Sort keys of a list in parallel arrays, indexed by the position in the list.
+     *
+     * <p>Creation times keep their nanoseconds rather than being packed into one long with
+     * the priority as epoch millis, which would order equipments created within the same
+     * millisecond by name.
+     */
+    private static final class Keys {
+
+        private final long[] priorities;
+
+        private final long[] seconds;
+
+        private final int[] nanos;
+
+        private final String[] names;
+
+        private final boolean newestFirst;
+
+        Keys(int size, boolean newestFirst) {
+            this.priorities = new long[size];
+            this.seconds = new long[size];
+            this.nanos = new int[size];
+            this.names = new String[size];
+            this.newestFirst = newestFirst;
+        }
+
+        void set(int index, @Nullable Integer priority, Instant createTime, String name) {
+            priorities[index] = priorityKey(priority);
+            seconds[index] = createTime.getEpochSecond();
+            nanos[index] = createTime.getNano();
+            names[index] = name;
+        }
+
+        int compare(int i, int j) {
+            int result = Long.compare(priorities[i], priorities[j]);
+            if (result != 0) {
+                return result;
+            }
+            result = Long.compare(seconds[i], seconds[j]);
+            if (result == 0) {
+                result = Integer.compare(nanos[i], nanos[j]);
+            }
+            if (result != 0) {
+                return newestFirst ? -result : result;
+            }
+            return names[i].compareTo(names[j]);
+        }
+
+        /**
+         * Reorders the list by a bottom-up merge sort of the index permutation.
+         */
+        <T> void sort(List<T> items) {
+            int size = names.length;
+            int[] order = new int[size];
+            int[] buffer = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            for (int width = 1; width < size; width <<= 1) {
+                for (int from = 0; from < size; from += width << 1) {
+                    int mid = Math.min(from + width, size);
+                    int to = Math.min(from + (width << 1), size);
+                    merge(order, buffer, from, mid, to);
+                }
+                int[] merged = buffer;
+                buffer = order;
+                order = merged;
+            }
+            Object[] copy = items.toArray();
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked")
+                T item = (T) copy[order[i]];
+                items.set(i, item);
+            }
+        }
+
+        private void merge(int[] source, int[] target, int from, int mid, int to) {
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || left < mid && compare(source[left], source[right]) <= 0) {
+                    target[i] = source[left++];
+                } else {
+                    target[i] = source[right++];
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package run.halo.equipments.finders.impl;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import org.apache.commons.lang3.ObjectUtils;
@@ -13,10 +22,19 @@ import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
 import run.halo.app.extension.ReactiveExtensionClient;
 import run.halo.app.theme.finders.Finder;
+import run.halo.equipments.CursorListResult;
 import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentCursor;
 import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.ModelConst;
+import run.halo.equipments.SingleFlight;
 import run.halo.equipments.finders.EquipmentFinder;
+import run.halo.equipments.finders.EquipmentSnapshot;
+import run.halo.equipments.index.EquipmentIndex;
+import run.halo.equipments.index.ListResults;
+import run.halo.equipments.metrics.EquipmentMetrics;
 import run.halo.equipments.vo.EquipmentGroupVo;
+import run.halo.equipments.vo.EquipmentSlimVo;
 import run.halo.equipments.vo.EquipmentVo;
 
 /**
@@ -26,14 +44,37 @@ import run.halo.equipments.vo.EquipmentVo;
 public class EquipmentFInderImpl implements EquipmentFinder {
     private final ReactiveExtensionClient client;
     
-    public EquipmentFInderImpl(ReactiveExtensionClient client) {
+    private final EquipmentIndex equipmentIndex;
+    
+    private final EquipmentMetrics metrics;
+    
+    /**
+     * Identical bounded queries rendered concurrently, e.g. by a burst of homepage requests,
+     * share one execution. Flights share equipments, every caller builds its own views.
+     */
+    private final SingleFlight<String> flights = new SingleFlight<>();
+    
+    public EquipmentFInderImpl(ReactiveExtensionClient client, EquipmentIndex equipmentIndex,
+        EquipmentMetrics metrics) {
         this.client = client;
+        this.equipmentIndex = equipmentIndex;
+        this.metrics = metrics;
     }
     
     @Override
     public Flux<EquipmentVo> listAll() {
-        return this.client.list(Equipment.class, null, defaultEquipmentComparator())
-            .flatMap(equipment -> Mono.just(EquipmentVo.from(equipment)));
+        return metrics.observeMany("finder.listAll", null, scan -> {
+            if (equipmentIndex.isReady()) {
+                return Flux.defer(() -> {
+                    List<Equipment> equipments = equipmentIndex.listAll();
+                    scan.scanned(equipments.size());
+                    return Flux.fromIterable(equipments);
+                }).map(EquipmentVo::from);
+            }
+            return this.client.list(Equipment.class, scan.counting(null),
+                    defaultEquipmentComparator())
+                .flatMap(equipment -> Mono.just(EquipmentVo.from(equipment)));
+        });
     }
     
     @Override
@@ -44,10 +85,100 @@ public class EquipmentFInderImpl implements EquipmentFinder {
     @Override
     public Mono<ListResult<EquipmentVo>> list(Integer page, Integer size,
         String group) {
-        return pageEquipment(page, size, group, null, defaultEquipmentComparator());
+        return Mono.deferContextual(context -> {
+            Mono<EquipmentSnapshot> snapshot = EquipmentSnapshot.from(context);
+            if (snapshot == null) {
+                return listShared(page, size, group);
+            }
+            return metrics.observe("finder.list", group, scan -> snapshot.map(current -> {
+                List<Equipment> equipments = StringUtils.isEmpty(group)
+                    ? current.listAll() : current.listBy(group);
+                scan.scanned(equipments.size());
+                return ListResults.page(equipments, pageNullSafe(page), sizeNullSafe(size),
+                    EquipmentVo::from);
+            }), result -> result.getItems().size());
+        });
+    }
+    
+    private Mono<ListResult<EquipmentVo>> listShared(Integer page, Integer size,
+        String group) {
+        String key = "list:" + pageNullSafe(page) + ":" + sizeNullSafe(size) + ":"
+            + StringUtils.defaultString(group);
+        return flights.execute(key, () -> metrics.observe("finder.list", group, scan -> {
+            if (equipmentIndex.isReady()) {
+                return Mono.fromSupplier(() -> {
+                    List<Equipment> equipments = StringUtils.isEmpty(group)
+                        ? equipmentIndex.listAll() : equipmentIndex.listBy(group);
+                    scan.scanned(equipments.size());
+                    return ListResults.page(equipments, pageNullSafe(page),
+                        sizeNullSafe(size), Function.identity());
+                });
+            }
+            return pageEquipment(page, size, group, scan.counting(null),
+                defaultEquipmentComparator());
+        }, result -> result.getItems().size())).map(EquipmentFInderImpl::toVoResult);
+    }
+    
+    private static ListResult<EquipmentVo> toVoResult(ListResult<Equipment> result) {
+        return new ListResult<>(result.getPage(), result.getSize(), result.getTotal(),
+            toVos(result.getItems()));
+    }
+    
+    @Override
+    public Mono<CursorListResult<EquipmentVo>> listAfter(String cursor, Integer size,
+        String group) {
+        int pageSize = Math.max(sizeNullSafe(size), 1);
+        String groupName = StringUtils.defaultIfEmpty(group, null);
+        String key = "listAfter:" + StringUtils.defaultString(cursor) + ":" + pageSize + ":"
+            + StringUtils.defaultString(groupName);
+        return flights.execute(key, () -> metrics.observe("finder.listAfter", groupName,
+                scan -> listAfter(cursor, pageSize, groupName, scan),
+                result -> result.getItems().size()))
+            .map(result -> result.map(EquipmentVo::from));
+    }
+    
+    private Mono<CursorListResult<Equipment>> listAfter(String cursor, int pageSize,
+        String groupName, EquipmentMetrics.Scan scan) {
+        return Mono.fromCallable(() -> EquipmentCursor.decode(cursor))
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(decoded -> {
+                EquipmentCursor after = decoded.orElse(null);
+                if (after != null && !after.matches(null, true)) {
+                    return Mono.error(new IllegalArgumentException(
+                        "The cursor was not created by listAfter: " + cursor));
+                }
+                Comparator<Equipment> comparator = defaultEquipmentComparator();
+                Equipment probe = after == null ? null : after.toProbe();
+                if (equipmentIndex.isReady()) {
+                    List<Equipment> equipments = groupName == null
+                        ? equipmentIndex.listAll() : equipmentIndex.listBy(groupName);
+                    int from = 0;
+                    if (probe != null) {
+                        int index = Collections.binarySearch(equipments, probe, comparator);
+                        from = index >= 0 ? index + 1 : -index - 1;
+                    }
+                    int to = (int) Math.min((long) from + pageSize + 1, equipments.size());
+                    scan.scanned(to - from);
+                    return Mono.just(equipments.subList(from, to));
+                }
+                Predicate<Equipment> predicate = equipment -> groupName == null
+                    || StringUtils.equals(groupName, equipment.getSpec().getGroupName());
+                if (probe != null) {
+                    predicate = predicate.and(
+                        equipment -> comparator.compare(equipment, probe) > 0);
+                }
+                return client.list(Equipment.class, scan.counting(predicate), comparator)
+                    .take(pageSize + 1)
+                    .collectList();
+            })
+            .map(equipments -> CursorListResult.of(equipments, pageSize,
+                equipment -> EquipmentCursor.after(equipment, null, true),
+                Function.identity()
+            ));
     }
     
-    private Mono<ListResult<EquipmentVo>> pageEquipment(Integer page, Integer size,
+    private Mono<ListResult<Equipment>> pageEquipment(Integer page, Integer size,
         String group, Predicate<Equipment> equipmentPredicate,
         Comparator<Equipment> comparator) {
         Predicate<Equipment> predicate = equipmentPredicate == null ? equipment -> true
@@ -60,68 +191,268 @@ public class EquipmentFInderImpl implements EquipmentFinder {
         }
         return client.list(Equipment.class, predicate, comparator,
             pageNullSafe(page), sizeNullSafe(size)
-        ).flatMap(list -> Flux.fromStream(list.get())
-            .concatMap(equipment -> Mono.just(EquipmentVo.from(equipment)))
-            .collectList()
-            .map(momentVos -> new ListResult<>(list.getPage(), list.getSize(),
-                list.getTotal(), momentVos
-            ))).defaultIfEmpty(new ListResult<>(page, size, 0L, List.of()));
+        ).defaultIfEmpty(new ListResult<>(page, size, 0L, List.of()));
     }
     
     @Override
     public Flux<EquipmentVo> listBy(String groupName) {
-        return client.list(Equipment.class, equipment -> {
-            String group = equipment.getSpec().getGroupName();
-            return StringUtils.equals(group, groupName);
-        }, defaultEquipmentComparator()).flatMap(
-            equipment -> Mono.just(EquipmentVo.from(equipment)));
+        return metrics.observeMany("finder.listBy", groupName, scan -> {
+            if (equipmentIndex.isReady()) {
+                return Flux.defer(() -> {
+                    List<Equipment> equipments = equipmentIndex.listBy(groupName);
+                    scan.scanned(equipments.size());
+                    return Flux.fromIterable(equipments);
+                }).map(EquipmentVo::from);
+            }
+            return client.list(Equipment.class, scan.counting(equipment -> {
+                String group = equipment.getSpec().getGroupName();
+                return StringUtils.equals(group, groupName);
+            }), defaultEquipmentComparator()).flatMap(
+                equipment -> Mono.just(EquipmentVo.from(equipment)));
+        });
+    }
+    
+    @Override
+    public Flux<EquipmentSlimVo> listSlimBy(String groupName) {
+        return metrics.observeMany("finder.listSlimBy", groupName, scan -> {
+            if (equipmentIndex.isReady()) {
+                return Flux.defer(() -> {
+                    List<Equipment> equipments = equipmentIndex.listBy(groupName);
+                    scan.scanned(equipments.size());
+                    return Flux.fromIterable(equipments);
+                }).map(EquipmentSlimVo::from);
+            }
+            return client.list(Equipment.class, scan.counting(equipment -> StringUtils.equals(
+                    groupName, equipment.getSpec().getGroupName())),
+                defaultEquipmentComparator()).map(EquipmentSlimVo::from);
+        });
     }
     
     @Override
     public Flux<EquipmentGroupVo> groupBy() {
-        return this.client.list(EquipmentGroup.class, null,
-            defaultGroupComparator()
-        ).concatMap(group -> {
-            EquipmentGroupVo.EquipmentGroupVoBuilder builder = EquipmentGroupVo.from(group);
-            return this.listBy(group.getMetadata().getName()).collectList().map(
-                equipments -> {
-                    EquipmentGroup.PostGroupStatus status = group.getStatus();
-                    status.setEquipmentCount(equipments.size());
-                    builder.status(status);
-                    builder.equipments(equipments);
-                    return builder.build();
-                });
+        return groupBy("finder.groupBy", Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public Flux<EquipmentGroupVo> groupBy(int limitPerGroup) {
+        return groupBy("finder.groupByLimit", limitPerGroup);
+    }
+    
+    private Flux<EquipmentGroupVo> groupBy(String operation, int limitPerGroup) {
+        return Flux.deferContextual(context -> {
+            Mono<EquipmentSnapshot> snapshot = EquipmentSnapshot.from(context);
+            if (snapshot == null) {
+                return flights.execute(operation + ":" + limitPerGroup,
+                    () -> metrics.observe(operation, null, scan -> this.client.list(
+                            EquipmentGroup.class, scan.counting(null), null)
+                        .collectList()
+                        .doOnNext(DefaultOrder::sortGroups)
+                        .flatMap(groups -> equipmentsByGroup(groupNames(groups),
+                            limitPerGroup, scan)
+                            .map(slices -> new Grouped(groups, slices))),
+                        grouped -> grouped.groups().size()))
+                    .flatMapIterable(grouped -> toGroupVos(grouped.groups(), grouped.slices()));
+            }
+            return metrics.observeMany(operation, null, scan -> snapshot.flatMapIterable(
+                current -> {
+                    List<EquipmentGroup> groups = current.groups();
+                    scan.scanned(groups.size());
+                    return toGroupVos(groups, slices(current::listBy, groupNames(groups),
+                        limitPerGroup, scan));
+                }));
         });
     }
     
-    static Comparator<EquipmentGroup> defaultGroupComparator() {
-        Function<EquipmentGroup, Integer> priority = group -> group.getSpec()
-            .getPriority();
-        Function<EquipmentGroup, Instant> createTime = group -> group.getMetadata()
-            .getCreationTimestamp();
-        Function<EquipmentGroup, String> name = group -> group.getMetadata()
-            .getName();
-        return Comparator.comparing(priority, Comparators.nullsLow())
-            .thenComparing(createTime)
-            .thenComparing(name);
+    private static List<String> groupNames(List<EquipmentGroup> groups) {
+        List<String> names = new ArrayList<>(groups.size());
+        for (EquipmentGroup group : groups) {
+            names.add(group.getMetadata().getName());
+        }
+        return names;
+    }
+    
+    private static List<EquipmentGroupVo> toGroupVos(List<EquipmentGroup> groups,
+        Map<String, GroupSlice> slices) {
+        List<EquipmentGroupVo> groupVos = new ArrayList<>(groups.size());
+        for (EquipmentGroup group : groups) {
+            GroupSlice slice = slices.get(group.getMetadata().getName());
+            // groups may be shared with other callers, the count goes into a copy
+            EquipmentGroup.PostGroupStatus status = new EquipmentGroup.PostGroupStatus();
+            if (group.getStatus() != null) {
+                status.setDeletedEquipmentCount(group.getStatus().getDeletedEquipmentCount());
+            }
+            status.setEquipmentCount(slice.count());
+            groupVos.add(EquipmentGroupVo.from(group)
+                .status(status)
+                .equipments(toVos(slice.equipments()))
+                .build());
+        }
+        return groupVos;
+    }
+    
+    @Override
+    public Mono<Map<String, List<EquipmentVo>>> listByGroups(Collection<String> groups) {
+        return listByGroups(groups, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public Mono<Map<String, List<EquipmentVo>>> listByGroups(Collection<String> groups,
+        int limitPerGroup) {
+        Set<String> names = new LinkedHashSet<>();
+        if (groups != null) {
+            for (String group : groups) {
+                if (StringUtils.isNotBlank(group)) {
+                    names.add(group);
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        String key = "listByGroups:" + limitPerGroup + ":" + String.join(",", names);
+        return flights.execute(key, () -> metrics.observe("finder.listByGroups", null,
+                scan -> equipmentsByGroup(names, limitPerGroup, scan), slices -> {
+                    int returned = 0;
+                    for (GroupSlice slice : slices.values()) {
+                        returned += slice.equipments().size();
+                    }
+                    return returned;
+                }))
+            .map(slices -> {
+                Map<String, List<EquipmentVo>> result = new LinkedHashMap<>();
+                for (String name : names) {
+                    result.put(name, toVos(slices.get(name).equipments()));
+                }
+                return result;
+            });
+    }
+    
+    @Override
+    public Flux<EquipmentVo> latest(int size) {
+        return flights.execute("latest:" + size, () -> metrics.observe("finder.latest", null,
+                scan -> {
+                BoundedHeap<Equipment> heap = new BoundedHeap<>(size, newestFirstComparator());
+                if (equipmentIndex.isReady()) {
+                    return Mono.fromSupplier(() -> {
+                        List<Equipment> equipments = equipmentIndex.listAll();
+                        scan.scanned(equipments.size());
+                        equipments.forEach(heap::offer);
+                        return heap.toSortedList();
+                    });
+                }
+                return client.list(Equipment.class, scan.counting(null), null)
+                    .doOnNext(heap::offer)
+                    .then(Mono.fromSupplier(heap::toSortedList));
+            }, List::size))
+            .flatMapIterable(equipments -> equipments)
+            .map(EquipmentVo::from);
+    }
+    
+    /**
+     * Slices equipments of the given groups in a single pass, each slice holds the first
+     * <code>limit</code> equipments of the group by {@link #defaultEquipmentComparator()}.
+     */
+    private Mono<Map<String, GroupSlice>> equipmentsByGroup(Collection<String> groupNames,
+        int limit, EquipmentMetrics.Scan scan) {
+        if (equipmentIndex.isReady()) {
+            return Mono.fromSupplier(
+                () -> slices(equipmentIndex::listBy, groupNames, limit, scan));
+        }
+        Comparator<Equipment> comparator = defaultEquipmentComparator();
+        return client.list(Equipment.class, scan.counting(null), null)
+            .collect(() -> {
+                Map<String, BoundedHeap<Equipment>> heaps = new HashMap<>(groupNames.size() * 2);
+                for (String name : groupNames) {
+                    heaps.put(name, new BoundedHeap<>(limit, comparator));
+                }
+                return heaps;
+            }, (heaps, equipment) -> {
+                BoundedHeap<Equipment> heap = heaps.get(equipment.getSpec().getGroupName());
+                if (heap != null) {
+                    heap.offer(equipment);
+                }
+            })
+            .map(heaps -> {
+                Map<String, GroupSlice> slices = new HashMap<>(heaps.size() * 2);
+                heaps.forEach((name, heap) -> slices.put(name,
+                    new GroupSlice(heap.toSortedList(), heap.offered())));
+                return slices;
+            });
+    }
+    
+    /**
+     * Slices equipments of the given groups out of lists already sorted by group.
+     */
+    private static Map<String, GroupSlice> slices(Function<String, List<Equipment>> listBy,
+        Collection<String> groupNames, int limit, EquipmentMetrics.Scan scan) {
+        Map<String, GroupSlice> slices = new HashMap<>(groupNames.size() * 2);
+        for (String name : groupNames) {
+            List<Equipment> equipments = listBy.apply(name);
+            List<Equipment> slice = equipments.subList(0,
+                Math.min(Math.max(limit, 0), equipments.size()));
+            scan.scanned(slice.size());
+            slices.put(name, new GroupSlice(slice, equipments.size()));
+        }
+        return slices;
+    }
+    
+    private static List<EquipmentVo> toVos(List<Equipment> equipments) {
+        List<EquipmentVo> equipmentVos = new ArrayList<>(equipments.size());
+        for (Equipment equipment : equipments) {
+            equipmentVos.add(EquipmentVo.from(equipment));
+        }
+        return equipmentVos;
     }
     
-    static Comparator<Equipment> defaultEquipmentComparator() {
-        Function<Equipment, Integer> priority = link -> link.getSpec()
-            .getPriority();
-        Function<Equipment, Instant> createTime = link -> link.getMetadata()
+    /**
+     * The first equipments of a group and the equipments count of the whole group.
+     */
+    record GroupSlice(List<Equipment> equipments, int count) {
+    }
+    
+    /**
+     * Groups in default order and the slices of their equipments by group name.
+     */
+    record Grouped(List<EquipmentGroup> groups, Map<String, GroupSlice> slices) {
+    }
+    
+    /**
+     * Orders groups by priority, then oldest first, then by name.
+     *
+     * @return a shared comparator, see {@link DefaultOrder#sortGroups(List)} to sort lists
+     */
+    public static Comparator<EquipmentGroup> defaultGroupComparator() {
+        return DefaultOrder.GROUPS;
+    }
+    
+    static Comparator<Equipment> newestFirstComparator() {
+        Function<Equipment, Instant> createTime = equipment -> equipment.getMetadata()
             .getCreationTimestamp();
-        Function<Equipment, String> name = link -> link.getMetadata().getName();
-        return Comparator.comparing(priority, Comparators.nullsLow())
-            .thenComparing(Comparator.comparing(createTime).reversed())
+        Function<Equipment, String> name = equipment -> equipment.getMetadata().getName();
+        return Comparator.comparing(createTime, Comparators.nullsHigh(
+                Comparator.<Instant>reverseOrder()))
             .thenComparing(name);
     }
     
+    /**
+     * Orders equipments by priority, then newest first, then by name.
+     *
+     * @return a shared comparator, see {@link DefaultOrder#sortEquipments(List)} to sort
+     *     lists
+     */
+    public static Comparator<Equipment> defaultEquipmentComparator() {
+        return DefaultOrder.EQUIPMENTS;
+    }
+    
     int pageNullSafe(Integer page) {
         return ObjectUtils.defaultIfNull(page, 1);
     }
     
+    /**
+     * Themes calling the finder without a size keep the page size they were written for,
+     * only the <code>/equipments</code> route follows the page size setting.
+     */
     int sizeNullSafe(Integer size) {
-        return ObjectUtils.defaultIfNull(size, 10);
+        return ObjectUtils.defaultIfNull(size, ModelConst.DEFAULT_PAGE_SIZE);
     }
 }
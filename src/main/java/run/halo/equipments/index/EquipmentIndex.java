@@ -0,0 +1,386 @@
+package run.halo.equipments.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.finders.impl.DefaultOrder;
+import run.halo.equipments.finders.impl.EquipmentFInderImpl;
+
+/**
+ * An in-memory index of the {@link Equipment}s listed by the theme finder, derived from
+ * {@link EquipmentStore}. Equipments being deleted are left out, ungrouped equipments are
+ * kept.
+ *
+ * <p>Equipments are kept sorted by {@link EquipmentFInderImpl#defaultEquipmentComparator()}
+ * per group, so that a change only touches the sorted set of its group. Readers get an
+ * immutable {@link Snapshot}, which is rebuilt on the first read after a change by reusing
+ * the lists of the groups that have not changed, so that a burst of changes, e.g. an
+ * import, is paid for once by the next reader rather than by every change.
+ *
+ * <p>{@link EquipmentGroup} changes only bump {@link #version()}.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentIndex implements EquipmentStore.Listener {
+
+    private final EquipmentStore store;
+
+    private final Comparator<Equipment> comparator =
+        EquipmentFInderImpl.defaultEquipmentComparator();
+
+    private final Object lock = new Object();
+
+    /**
+     * Indexed equipments by name.
+     */
+    private final Map<String, Equipment> indexed = new ConcurrentHashMap<>();
+
+    /**
+     * Sorted equipments by {@link #groupKey(String)}, guarded by {@link #lock}.
+     */
+    private final Map<GroupKey, TreeSet<Equipment>> groups = new HashMap<>();
+
+    /**
+     * Groups changed since {@link #built} was built, guarded by {@link #lock}.
+     */
+    private final Set<GroupKey> changedGroups = new HashSet<>();
+
+    private Snapshot built = Snapshot.EMPTY;
+
+    /**
+     * The snapshot for readers, null if it has to be rebuilt.
+     */
+    @Nullable
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile String epoch = newEpoch();
+
+    public EquipmentIndex(EquipmentStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    /**
+     * Whether the initial build has been completed.
+     *
+     * @return true if the index can serve reads
+     */
+    public boolean isReady() {
+        return store.isReady();
+    }
+
+    /**
+     * Gets a stamp that changes whenever an equipment or a group changes, so that data
+     * derived from them can be cached.
+     *
+     * @return data version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Gets {@link #version()} qualified by the start of the index, so that stamps handed
+     * out to clients do not repeat after the plugin restarts.
+     *
+     * @return data stamp
+     */
+    public String stamp() {
+        return epoch + "." + version.get();
+    }
+
+    /**
+     * Gets an immutable snapshot of the indexed equipments.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (lock) {
+            if (snapshot == null) {
+                built = built.with(groups, changedGroups);
+                changedGroups.clear();
+                snapshot = built;
+            }
+            return built;
+        }
+    }
+
+    /**
+     * Lists all equipments in default order, including ungrouped ones.
+     *
+     * @return an unmodifiable sorted list
+     */
+    public List<Equipment> listAll() {
+        return snapshot().listAll();
+    }
+
+    /**
+     * Lists equipments of the given group in default order.
+     *
+     * @param groupName group name, ungrouped equipments will be returned if null
+     * @return an unmodifiable sorted list
+     */
+    public List<Equipment> listBy(@Nullable String groupName) {
+        return snapshot().listBy(groupName);
+    }
+
+    /**
+     * Gets the indexed equipment by name.
+     *
+     * @param name equipment name
+     * @return the indexed equipment or null if absent
+     */
+    @Nullable
+    public Equipment get(String name) {
+        return indexed.get(name);
+    }
+
+    /**
+     * Gets the equipments count of the given group without building a snapshot.
+     *
+     * @param groupName group name
+     * @return equipments count
+     */
+    public int count(String groupName) {
+        synchronized (lock) {
+            TreeSet<Equipment> members = groups.get(groupKey(groupName));
+            return members == null ? 0 : members.size();
+        }
+    }
+
+    @Override
+    public void reset(Collection<Equipment> equipments) {
+        synchronized (lock) {
+            indexed.clear();
+            groups.clear();
+            changedGroups.clear();
+            for (Equipment equipment : equipments) {
+                if (isIndexable(equipment)) {
+                    indexed.put(equipment.getMetadata().getName(), equipment);
+                    members(equipment).add(equipment);
+                }
+            }
+            built = Snapshot.EMPTY;
+            changedGroups.addAll(groups.keySet());
+            snapshot = null;
+            epoch = newEpoch();
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void changed(@Nullable Equipment previous, @Nullable Equipment current) {
+        synchronized (lock) {
+            String name = previous != null ? previous.getMetadata().getName()
+                : current.getMetadata().getName();
+            Equipment removed = indexed.remove(name);
+            if (removed != null) {
+                GroupKey key = groupKey(removed.getSpec().getGroupName());
+                TreeSet<Equipment> members = groups.get(key);
+                members.remove(removed);
+                if (members.isEmpty()) {
+                    groups.remove(key);
+                }
+                changedGroups.add(key);
+            }
+            if (current != null && isIndexable(current)) {
+                indexed.put(name, current);
+                members(current).add(current);
+                changedGroups.add(groupKey(current.getSpec().getGroupName()));
+            }
+            snapshot = null;
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void groupChanged() {
+        version.incrementAndGet();
+    }
+
+    private TreeSet<Equipment> members(Equipment equipment) {
+        return groups.computeIfAbsent(groupKey(equipment.getSpec().getGroupName()),
+            key -> new TreeSet<>(comparator));
+    }
+
+    private static String newEpoch() {
+        return Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    /**
+     * Whether the equipment is listed by the theme finder.
+     *
+     * @param equipment equipment
+     * @return false if the equipment is being deleted
+     */
+    public static boolean isIndexable(Equipment equipment) {
+        return equipment.getSpec() != null && !equipment.isDeleted();
+    }
+
+    private static GroupKey groupKey(@Nullable String groupName) {
+        return groupName == null ? GroupKey.UNGROUPED : new GroupKey(groupName);
+    }
+
+    /**
+     * Group of an equipment, {@link #UNGROUPED} for equipments without a group.
+     */
+    private record GroupKey(@Nullable String name) {
+
+        static final GroupKey UNGROUPED = new GroupKey(null);
+    }
+
+    /**
+     * An immutable view of the indexed equipments, sorted per group. The list of all
+     * equipments is merged from the groups on first use.
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(Map.of());
+
+        private final Map<GroupKey, List<Equipment>> groups;
+
+        @Nullable
+        private volatile List<Equipment> all;
+
+        private Snapshot(Map<GroupKey, List<Equipment>> groups) {
+            this.groups = groups;
+        }
+
+        /**
+         * Creates a snapshot of listed equipments, e.g. when the index is not ready,
+         * leaving out the same equipments as the index does.
+         *
+         * @param equipments equipments in any order
+         * @return a snapshot
+         */
+        public static Snapshot of(Collection<Equipment> equipments) {
+            Map<GroupKey, List<Equipment>> groups = new HashMap<>();
+            for (Equipment equipment : equipments) {
+                if (isIndexable(equipment)) {
+                    groups.computeIfAbsent(groupKey(equipment.getSpec().getGroupName()),
+                        key -> new ArrayList<>()).add(equipment);
+                }
+            }
+            groups.replaceAll((key, members) -> {
+                DefaultOrder.sortEquipments(members);
+                return List.copyOf(members);
+            });
+            return new Snapshot(Map.copyOf(groups));
+        }
+
+        /**
+         * Lists all equipments in default order, including ungrouped ones.
+         *
+         * @return an unmodifiable sorted list
+         */
+        public List<Equipment> listAll() {
+            List<Equipment> merged = all;
+            if (merged == null) {
+                merged = merge(groups.values());
+                all = merged;
+            }
+            return merged;
+        }
+
+        /**
+         * Lists equipments of the given group in default order.
+         *
+         * @param groupName group name, ungrouped equipments will be returned if null
+         * @return an unmodifiable sorted list
+         */
+        public List<Equipment> listBy(@Nullable String groupName) {
+            return groups.getOrDefault(groupKey(groupName), List.of());
+        }
+
+        /**
+         * Builds the next snapshot, only the lists of changed groups are copied.
+         */
+        Snapshot with(Map<GroupKey, TreeSet<Equipment>> current, Set<GroupKey> changed) {
+            if (changed.isEmpty()) {
+                return this;
+            }
+            Map<GroupKey, List<Equipment>> next = new HashMap<>(groups);
+            for (GroupKey key : changed) {
+                TreeSet<Equipment> members = current.get(key);
+                if (members == null) {
+                    next.remove(key);
+                } else {
+                    next.put(key, List.copyOf(members));
+                }
+            }
+            return new Snapshot(Map.copyOf(next));
+        }
+
+        /**
+         * Merges the sorted lists of the groups into one sorted list.
+         */
+        private static List<Equipment> merge(Collection<List<Equipment>> sorted) {
+            if (sorted.isEmpty()) {
+                return List.of();
+            }
+            if (sorted.size() == 1) {
+                return sorted.iterator().next();
+            }
+            Comparator<Equipment> comparator = EquipmentFInderImpl.defaultEquipmentComparator();
+            PriorityQueue<Cursor> heads = new PriorityQueue<>(sorted.size(),
+                (a, b) -> comparator.compare(a.head(), b.head()));
+            int size = 0;
+            for (List<Equipment> members : sorted) {
+                size += members.size();
+                if (!members.isEmpty()) {
+                    heads.add(new Cursor(members));
+                }
+            }
+            List<Equipment> merged = new ArrayList<>(size);
+            while (!heads.isEmpty()) {
+                Cursor cursor = heads.poll();
+                merged.add(cursor.head());
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+            return Collections.unmodifiableList(merged);
+        }
+    }
+
+    private static final class Cursor {
+
+        private final List<Equipment> members;
+
+        private int position;
+
+        Cursor(List<Equipment> members) {
+            this.members = members;
+        }
+
+        Equipment head() {
+            return members.get(position);
+        }
+
+        boolean advance() {
+            return ++position < members.size();
+        }
+    }
+}
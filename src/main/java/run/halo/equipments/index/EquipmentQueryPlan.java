@@ -0,0 +1,92 @@
+package run.halo.equipments.index;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentQuery;
+
+/**
+ * An access plan of an {@link EquipmentQuery} chosen by {@link EquipmentQueryPlanner}.
+ *
+ * <p>Candidates are read from the most selective access and probed against the other
+ * accesses, only the survivors are tested by the residual filters.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Getter
+public class EquipmentQueryPlan {
+
+    @Schema(description = "INDEX reads candidates from the accesses and sorts them, SCAN "
+        + "tests every equipment in the requested order.")
+    private final Strategy strategy;
+
+    @Schema(description = "Index accesses, the most selective first.")
+    private final List<Access> accesses;
+
+    @Schema(description = "Filters still evaluated on every candidate.")
+    private final List<String> residual;
+
+    @Schema(description = "Number of indexed equipments.")
+    private final int total;
+
+    @Schema(description = "Estimated number of candidates read from the first access.")
+    private final int estimatedCandidates;
+
+    @Schema(description = "Estimated cost of the index strategy.")
+    private final double indexCost;
+
+    @Schema(description = "Estimated cost of the scan strategy.")
+    private final double scanCost;
+
+    @Getter(AccessLevel.NONE)
+    final Predicate<Equipment> filter;
+
+    @Nullable
+    @Getter(AccessLevel.NONE)
+    final String keyword;
+
+    EquipmentQueryPlan(Strategy strategy, List<Access> accesses, List<String> residual,
+        int total, double indexCost, double scanCost, Predicate<Equipment> filter,
+        @Nullable String keyword) {
+        this.strategy = strategy;
+        this.accesses = accesses;
+        this.residual = residual;
+        this.total = total;
+        this.estimatedCandidates = accesses.isEmpty() ? total : accesses.get(0).estimate();
+        this.indexCost = indexCost;
+        this.scanCost = scanCost;
+        this.filter = filter;
+        this.keyword = keyword;
+    }
+
+    public enum Strategy {
+        INDEX,
+        SCAN
+    }
+
+    public enum Source {
+        NAME,
+        GROUP,
+        LABEL,
+        KEYWORD
+    }
+
+    /**
+     * An index access, candidates must be in all of its posting lists.
+     *
+     * @param source index the access reads
+     * @param term looked up term, e.g. a group name or <code>key=value</code>
+     * @param estimate upper bound of the matches
+     * @param postings live posting lists, not serialized
+     */
+    public record Access(Source source, String term, int estimate,
+                         @Schema(hidden = true) @JsonIgnore List<Set<String>> postings) {
+    }
+}
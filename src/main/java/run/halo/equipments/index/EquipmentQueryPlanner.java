@@ -0,0 +1,186 @@
+package run.halo.equipments.index;
+
+import static run.halo.app.extension.router.selector.SelectorUtil.labelAndFieldSelectorToPredicate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentQuery;
+import run.halo.equipments.metrics.EquipmentMetrics;
+
+/**
+ * Turns an {@link EquipmentQuery} into an {@link EquipmentQueryPlan} over the posting lists
+ * of {@link EquipmentSearchIndex}.
+ *
+ * <p>The group, equality label selectors, name field selectors and the keyword grams are
+ * pushed down as index accesses. The access with the fewest postings drives the lookup,
+ * the other accesses are probed by name, and only the survivors are tested by the filters
+ * that cannot be pushed down. Label selectors such as <code>key!=value</code> or
+ * <code>!key</code> stay residual, field selectors are always re-checked because their
+ * semantics are owned by Halo.
+ *
+ * <p>Without a keyword, the planner weighs reading and sorting the candidates against
+ * scanning an ordered index, so a filter matching most equipments keeps the scan.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentQueryPlanner {
+
+    private static final Pattern EQUALITY = Pattern.compile("^([^=!\\s]+)=([^=!]*)$");
+
+    private static final Set<String> NAME_FIELDS = Set.of("name", "metadata.name");
+
+    private final EquipmentSearchIndex searchIndex;
+
+    public EquipmentQueryPlanner(EquipmentSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Plans the query against the current postings.
+     *
+     * @param query query
+     * @return the chosen plan
+     */
+    public EquipmentQueryPlan plan(EquipmentQuery query) {
+        List<EquipmentQueryPlan.Access> accesses = new ArrayList<>();
+        List<String> residual = new ArrayList<>();
+
+        String group = query.getGroup();
+        if (group != null) {
+            accesses.add(access(EquipmentQueryPlan.Source.GROUP, group,
+                List.of(searchIndex.groupPostings(group))));
+        }
+
+        List<String> residualLabels = new ArrayList<>();
+        for (String selector : nullSafe(query.getLabelSelector())) {
+            Matcher matcher = EQUALITY.matcher(selector);
+            if (matcher.matches()) {
+                accesses.add(access(EquipmentQueryPlan.Source.LABEL, selector,
+                    List.of(searchIndex.labelPostings(matcher.group(1), matcher.group(2)))));
+            } else {
+                residualLabels.add(selector);
+            }
+        }
+        if (!residualLabels.isEmpty()) {
+            residual.add("labelSelector " + residualLabels);
+        }
+
+        List<String> fieldSelectors = nullSafe(query.getFieldSelector());
+        for (String selector : fieldSelectors) {
+            Matcher matcher = EQUALITY.matcher(selector);
+            if (matcher.matches() && NAME_FIELDS.contains(matcher.group(1))) {
+                String name = matcher.group(2);
+                accesses.add(access(EquipmentQueryPlan.Source.NAME, name,
+                    List.of(searchIndex.get(name) == null ? Set.of() : Set.of(name))));
+            }
+        }
+        if (!fieldSelectors.isEmpty()) {
+            residual.add("fieldSelector " + fieldSelectors);
+        }
+
+        String keyword = query.getKeyword();
+        if (keyword != null) {
+            List<Set<String>> postings = searchIndex.keywordPostings(keyword);
+            accesses.add(access(EquipmentQueryPlan.Source.KEYWORD, keyword,
+                postings.isEmpty() ? List.of(Set.of()) : postings));
+            residual.add("keyword " + keyword);
+        }
+
+        accesses.sort(Comparator.comparingInt(EquipmentQueryPlan.Access::estimate));
+        int total = searchIndex.size();
+        // every equipment is tested in order by a scan, candidates are probed and sorted
+        double scanCost = total;
+        double indexCost = Double.POSITIVE_INFINITY;
+        if (!accesses.isEmpty()) {
+            int candidates = accesses.get(0).estimate();
+            indexCost = candidates * (1 + log2(candidates));
+        }
+        EquipmentQueryPlan.Strategy strategy = keyword != null || indexCost < scanCost
+            ? EquipmentQueryPlan.Strategy.INDEX : EquipmentQueryPlan.Strategy.SCAN;
+        return new EquipmentQueryPlan(strategy, List.copyOf(accesses), List.copyOf(residual),
+            total, indexCost, scanCost,
+            labelAndFieldSelectorToPredicate(residualLabels, fieldSelectors)::test, keyword);
+    }
+
+    /**
+     * Reads the candidates of an {@link EquipmentQueryPlan.Strategy#INDEX} plan.
+     *
+     * @param plan plan
+     * @param scan records the candidates tested by the residual filters
+     * @return unordered hits, scored if the query has a keyword
+     */
+    public List<EquipmentSearchIndex.Hit> execute(EquipmentQueryPlan plan,
+        EquipmentMetrics.Scan scan) {
+        List<Set<String>> lists = new ArrayList<>();
+        for (EquipmentQueryPlan.Access access : plan.getAccesses()) {
+            lists.addAll(access.postings());
+        }
+        if (lists.isEmpty()) {
+            throw new IllegalStateException("A plan without accesses can only be scanned.");
+        }
+        Set<String> driver = lists.get(0);
+        for (Set<String> names : lists) {
+            if (names.size() < driver.size()) {
+                driver = names;
+            }
+        }
+        String normalized = plan.keyword == null ? null
+            : EquipmentSearchIndex.normalize(plan.keyword);
+        Predicate<Equipment> filter = scan.counting(plan.filter);
+        List<EquipmentSearchIndex.Hit> hits = new ArrayList<>();
+        for (String name : driver) {
+            if (!containsAll(lists, name)) {
+                continue;
+            }
+            Equipment equipment = searchIndex.get(name);
+            if (equipment == null || !filter.test(equipment)) {
+                continue;
+            }
+            int score = 0;
+            if (normalized != null) {
+                score = EquipmentSearchIndex.score(equipment, normalized);
+                if (score == 0) {
+                    continue;
+                }
+            }
+            hits.add(new EquipmentSearchIndex.Hit(equipment, score));
+        }
+        return hits;
+    }
+
+    private static EquipmentQueryPlan.Access access(EquipmentQueryPlan.Source source,
+        String term, List<Set<String>> postings) {
+        int estimate = Integer.MAX_VALUE;
+        for (Set<String> names : postings) {
+            estimate = Math.min(estimate, names.size());
+        }
+        return new EquipmentQueryPlan.Access(source, term, estimate, postings);
+    }
+
+    private static boolean containsAll(List<Set<String>> lists, String name) {
+        for (Set<String> names : lists) {
+            if (!names.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double log2(int n) {
+        return n <= 1 ? 0 : Math.log(n) / Math.log(2);
+    }
+
+    private static List<String> nullSafe(List<String> selectors) {
+        return CollectionUtils.isEmpty(selectors) ? List.of() : selectors;
+    }
+}
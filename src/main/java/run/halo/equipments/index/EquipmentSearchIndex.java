@@ -0,0 +1,324 @@
+package run.halo.equipments.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import run.halo.equipments.Equipment;
+
+/**
+ * An inverted index for keyword search over <code>spec.displayName</code>,
+ * <code>spec.description</code> and <code>spec.url</code> of {@link Equipment}.
+ *
+ * <p>Texts are indexed by code point unigrams and bigrams, so that Chinese text without
+ * whitespace can be searched as well. A keyword is looked up by intersecting the posting
+ * lists of its grams, and the few candidates left are verified by a substring match, which
+ * keeps the case-insensitive substring semantics of the previous scan.
+ *
+ * <p>Posting lists of group names and labels are kept as well, so that
+ * {@link EquipmentQueryPlanner} can narrow a query before its predicates are evaluated.
+ *
+ * <p>Equipments are read from {@link EquipmentStore}, which calls the index on every change,
+ * only the posting lists are kept here. Unlike {@link EquipmentIndex}, equipments being
+ * deleted are kept, because the console still lists them.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentSearchIndex implements EquipmentStore.Listener {
+
+    private static final int DISPLAY_NAME_WEIGHT = 4;
+
+    private final EquipmentStore store;
+
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> groupPostings = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> labelPostings = new ConcurrentHashMap<>();
+
+    public EquipmentSearchIndex(EquipmentStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    /**
+     * Whether the initial build has been completed.
+     *
+     * @return true if the index can serve searches
+     */
+    public boolean isReady() {
+        return store.isReady();
+    }
+
+    /**
+     * Searches equipments whose display name, description or url contains the keyword,
+     * ignoring case.
+     *
+     * @param keyword keyword
+     * @return unordered hits
+     */
+    public List<Hit> search(String keyword) {
+        String normalized = normalize(keyword);
+        List<Set<String>> lists = keywordPostings(keyword);
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        Set<String> smallest = lists.get(0);
+        for (Set<String> names : lists) {
+            if (names.size() < smallest.size()) {
+                smallest = names;
+            }
+        }
+        List<Hit> hits = new ArrayList<>();
+        for (String name : smallest) {
+            if (!containsAll(lists, name)) {
+                continue;
+            }
+            Equipment equipment = store.get(name);
+            if (equipment == null) {
+                continue;
+            }
+            int score = score(equipment, normalized);
+            if (score > 0) {
+                hits.add(new Hit(equipment, score));
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Gets the posting lists of the grams of the keyword, every equipment matching the
+     * keyword is in all of them.
+     *
+     * @param keyword keyword
+     * @return live posting lists, empty if nothing can match
+     */
+    public List<Set<String>> keywordPostings(String keyword) {
+        String normalized = normalize(keyword);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        List<Set<String>> lists = new ArrayList<>();
+        for (String gram : queryGrams(normalized)) {
+            Set<String> names = postings.get(gram);
+            if (names == null) {
+                return List.of();
+            }
+            lists.add(names);
+        }
+        return lists;
+    }
+
+    /**
+     * Gets the names of equipments in the given group.
+     *
+     * @param groupName group name
+     * @return a live unmodifiable set
+     */
+    public Set<String> groupPostings(String groupName) {
+        return unmodifiable(groupPostings.get(groupName));
+    }
+
+    /**
+     * Gets the names of equipments labeled with the given key and value.
+     *
+     * @param key label key
+     * @param value label value
+     * @return a live unmodifiable set
+     */
+    public Set<String> labelPostings(String key, String value) {
+        return unmodifiable(labelPostings.get(labelTerm(key, value)));
+    }
+
+    /**
+     * Gets the indexed equipment by name.
+     *
+     * @param name equipment name
+     * @return the indexed equipment or null if absent
+     */
+    @Nullable
+    public Equipment get(String name) {
+        return store.get(name);
+    }
+
+    /**
+     * Gets the number of indexed equipments.
+     *
+     * @return equipments count
+     */
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Whether the equipment matches the keyword, with the same semantics as
+     * {@link #search(String)}.
+     *
+     * @param equipment equipment
+     * @param keyword keyword
+     * @return true if matches
+     */
+    public static boolean matches(Equipment equipment, String keyword) {
+        return score(equipment, normalize(keyword)) > 0;
+    }
+
+    static int score(Equipment equipment, String normalized) {
+        var spec = equipment.getSpec();
+        if (spec == null) {
+            return 0;
+        }
+        int score = 0;
+        String displayName = normalize(spec.getDisplayName());
+        if (displayName.contains(normalized)) {
+            score += DISPLAY_NAME_WEIGHT;
+            if (displayName.startsWith(normalized)) {
+                score += 2;
+            }
+            if (displayName.equals(normalized)) {
+                score += 2;
+            }
+        }
+        if (normalize(spec.getDescription()).contains(normalized)) {
+            score += 1;
+        }
+        if (normalize(spec.getUrl()).contains(normalized)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    @Override
+    public void reset(Collection<Equipment> equipments) {
+        postings.clear();
+        groupPostings.clear();
+        labelPostings.clear();
+        for (Equipment equipment : equipments) {
+            changed(null, equipment);
+        }
+    }
+
+    @Override
+    public void changed(@Nullable Equipment previous, @Nullable Equipment current) {
+        String name = previous != null ? previous.getMetadata().getName()
+            : current.getMetadata().getName();
+        repost(postings, name,
+            previous == null ? Set.of() : documentGrams(previous),
+            current == null ? Set.of() : documentGrams(current));
+        repost(groupPostings, name, groupTerms(previous), groupTerms(current));
+        repost(labelPostings, name, labelTerms(previous), labelTerms(current));
+    }
+
+    private static void repost(Map<String, Set<String>> postings, String name,
+        Set<String> oldTerms, Set<String> newTerms) {
+        for (String term : oldTerms) {
+            if (newTerms.contains(term)) {
+                continue;
+            }
+            Set<String> names = postings.get(term);
+            if (names != null) {
+                names.remove(name);
+                if (names.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        for (String term : newTerms) {
+            if (!oldTerms.contains(term)) {
+                postings.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(name);
+            }
+        }
+    }
+
+    private static Set<String> groupTerms(@Nullable Equipment equipment) {
+        if (equipment == null || equipment.getSpec() == null
+            || equipment.getSpec().getGroupName() == null) {
+            return Set.of();
+        }
+        return Set.of(equipment.getSpec().getGroupName());
+    }
+
+    private static Set<String> labelTerms(@Nullable Equipment equipment) {
+        if (equipment == null || equipment.getMetadata().getLabels() == null) {
+            return Set.of();
+        }
+        Set<String> terms = new HashSet<>();
+        equipment.getMetadata().getLabels()
+            .forEach((key, value) -> terms.add(labelTerm(key, value)));
+        return terms;
+    }
+
+    private static String labelTerm(String key, @Nullable String value) {
+        // label keys never contain '='
+        return key + "=" + StringUtils.defaultString(value);
+    }
+
+    private static Set<String> unmodifiable(@Nullable Set<String> names) {
+        return names == null ? Set.of() : Collections.unmodifiableSet(names);
+    }
+
+    private static boolean containsAll(Collection<Set<String>> lists, String name) {
+        for (Set<String> names : lists) {
+            if (!names.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Set<String> documentGrams(Equipment equipment) {
+        Set<String> grams = new HashSet<>();
+        var spec = equipment.getSpec();
+        if (spec != null) {
+            addGrams(grams, normalize(spec.getDisplayName()));
+            addGrams(grams, normalize(spec.getDescription()));
+            addGrams(grams, normalize(spec.getUrl()));
+        }
+        return grams;
+    }
+
+    static Set<String> queryGrams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        int[] codePoints = normalized.codePoints().toArray();
+        if (codePoints.length == 1) {
+            grams.add(new String(codePoints, 0, 1));
+            return grams;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 2));
+        }
+        return grams;
+    }
+
+    private static void addGrams(Set<String> grams, String normalized) {
+        int[] codePoints = normalized.codePoints().toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 1));
+            if (i + 1 < codePoints.length) {
+                grams.add(new String(codePoints, i, 2));
+            }
+        }
+    }
+
+    static String normalize(@Nullable String text) {
+        return StringUtils.defaultString(text).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A search hit.
+     *
+     * @param equipment matched equipment
+     * @param score relevance, matches in the display name weigh more than other fields
+     */
+    public record Hit(Equipment equipment, int score) {
+    }
+}
@@ -0,0 +1,194 @@
+package run.halo.equipments.index;
+
+import java.text.CollationKey;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.TreeSet;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentSorter;
+
+/**
+ * Maintains the order of every {@link EquipmentSorter}, so that sorted listings read a
+ * precomputed order instead of sorting per query.
+ *
+ * <p>Sort keys, including the {@link CollationKey} of the display name, are computed once
+ * when {@link EquipmentStore} reports a change, and moved within sorted sets. Each order is
+ * kept ascending and copied into an immutable list on the first read after a change,
+ * descending listings are reversed views of it. Like {@link EquipmentSearchIndex},
+ * equipments being deleted are kept because the console still lists them.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentSortIndex implements EquipmentStore.Listener {
+
+    private static final Comparator<SortKey> DISPLAY_NAME_ORDER =
+        Comparator.comparing(SortKey::displayName, Comparator.nullsFirst(
+                Comparator.<CollationKey>naturalOrder()))
+            .thenComparing(SortKey::name);
+
+    private static final Comparator<SortKey> CREATE_TIME_ORDER =
+        Comparator.comparing((SortKey key) -> key.equipment().getMetadata()
+                .getCreationTimestamp())
+            .thenComparing(SortKey::name);
+
+    private final EquipmentStore store;
+
+    private final Object lock = new Object();
+
+    private final Map<String, SortKey> keys = new HashMap<>();
+
+    private final Order byDisplayName = new Order(DISPLAY_NAME_ORDER);
+
+    private final Order byCreateTime = new Order(CREATE_TIME_ORDER);
+
+    public EquipmentSortIndex(EquipmentStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    /**
+     * Whether the initial build has been completed.
+     *
+     * @return true if the orders can be read
+     */
+    public boolean isReady() {
+        return store.isReady();
+    }
+
+    /**
+     * Lists all equipments in the order of the given sorter, consistent with
+     * {@link EquipmentSorter#from(EquipmentSorter, Boolean)}.
+     *
+     * @param sorter sorter, {@link EquipmentSorter#CREATE_TIME} if null
+     * @param ascending whether the order is ascending
+     * @return an unmodifiable sorted list
+     */
+    public List<Equipment> list(@Nullable EquipmentSorter sorter, boolean ascending) {
+        Order order = EquipmentSorter.DISPLAY_NAME.equals(sorter) ? byDisplayName
+            : byCreateTime;
+        List<Equipment> ordered = order.list();
+        return ascending ? ordered : new ReversedList<>(ordered);
+    }
+
+    @Override
+    public void reset(Collection<Equipment> equipments) {
+        synchronized (lock) {
+            keys.clear();
+            byDisplayName.clear();
+            byCreateTime.clear();
+            for (Equipment equipment : equipments) {
+                SortKey key = SortKey.of(equipment);
+                keys.put(key.name(), key);
+                byDisplayName.add(key);
+                byCreateTime.add(key);
+            }
+        }
+    }
+
+    @Override
+    public void changed(@Nullable Equipment previous, @Nullable Equipment current) {
+        synchronized (lock) {
+            String name = previous != null ? previous.getMetadata().getName()
+                : current.getMetadata().getName();
+            SortKey removed = keys.remove(name);
+            if (removed != null) {
+                byDisplayName.remove(removed);
+                byCreateTime.remove(removed);
+            }
+            if (current != null) {
+                SortKey key = SortKey.of(current);
+                keys.put(name, key);
+                byDisplayName.add(key);
+                byCreateTime.add(key);
+            }
+        }
+    }
+
+    record SortKey(Equipment equipment, String name, @Nullable CollationKey displayName) {
+
+        static SortKey of(Equipment equipment) {
+            var spec = equipment.getSpec();
+            return new SortKey(equipment, equipment.getMetadata().getName(),
+                EquipmentSorter.collationKey(spec == null ? null : spec.getDisplayName()));
+        }
+    }
+
+    /**
+     * One ascending order, kept in a sorted set and copied into an immutable list on the
+     * first read after a change.
+     */
+    private class Order {
+
+        private final TreeSet<SortKey> sorted;
+
+        @Nullable
+        private volatile List<Equipment> view = List.of();
+
+        Order(Comparator<SortKey> comparator) {
+            this.sorted = new TreeSet<>(comparator);
+        }
+
+        List<Equipment> list() {
+            List<Equipment> current = view;
+            if (current != null) {
+                return current;
+            }
+            synchronized (lock) {
+                if (view == null) {
+                    List<Equipment> equipments = new ArrayList<>(sorted.size());
+                    for (SortKey key : sorted) {
+                        equipments.add(key.equipment());
+                    }
+                    view = Collections.unmodifiableList(equipments);
+                }
+                return view;
+            }
+        }
+
+        void add(SortKey key) {
+            sorted.add(key);
+            view = null;
+        }
+
+        void remove(SortKey key) {
+            sorted.remove(key);
+            view = null;
+        }
+
+        void clear() {
+            sorted.clear();
+            view = null;
+        }
+    }
+
+    static class ReversedList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final List<T> source;
+
+        ReversedList(List<T> source) {
+            this.source = Objects.requireNonNull(source);
+        }
+
+        @Override
+        public T get(int index) {
+            return source.get(source.size() - 1 - index);
+        }
+
+        @Override
+        public int size() {
+            return source.size();
+        }
+    }
+}
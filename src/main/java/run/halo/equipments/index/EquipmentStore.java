@@ -0,0 +1,277 @@
+package run.halo.equipments.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.GroupVersionKind;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+
+/**
+ * The latest version of every {@link Equipment}, including equipments being deleted, kept
+ * up to date by a single watcher and shared by {@link EquipmentIndex},
+ * {@link EquipmentSearchIndex} and {@link EquipmentSortIndex}.
+ *
+ * <p>The watcher is registered before the initial list is requested, and events received
+ * while the list is in flight are buffered and replayed over it once it lands. An event
+ * older than the stored equipment by <code>metadata.version</code> is ignored, so that
+ * neither the list nor a late event can bring back a stale equipment.
+ *
+ * <p>Listeners are called one change at a time while the store is locked, so they can
+ * update their structures incrementally without locking against each other.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+@Component
+public class EquipmentStore {
+
+    private static final GroupVersionKind GROUP_GVK =
+        GroupVersionKind.fromExtension(EquipmentGroup.class);
+
+    private final ReactiveExtensionClient client;
+
+    private final Map<String, Equipment> documents = new ConcurrentHashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * Events received while the initial list is in flight, null once it has landed.
+     */
+    @Nullable
+    private List<Event> pending;
+
+    private volatile boolean ready;
+
+    private StoreWatcher watcher;
+
+    public EquipmentStore(ReactiveExtensionClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Registers a listener, which is reset with the stored equipments when the initial list
+     * lands and then notified of every change.
+     *
+     * @param listener listener
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts watching equipment changes and loads the equipments from the extension store,
+     * so that events missed while the plugin was stopped are covered.
+     */
+    public void start() {
+        StoreWatcher started;
+        synchronized (lock) {
+            if (watcher != null && !watcher.isDisposed()) {
+                return;
+            }
+            pending = new ArrayList<>();
+            started = new StoreWatcher();
+            watcher = started;
+            client.watch(started);
+        }
+        client.list(Equipment.class, null, null)
+            .collectList()
+            .subscribe(equipments -> load(started, equipments), e -> {
+                log.error("Failed to load equipments, the indexes will not be used.", e);
+                synchronized (lock) {
+                    if (watcher == started) {
+                        pending = null;
+                    }
+                }
+            });
+    }
+
+    /**
+     * Stops watching equipment changes and releases the stored equipments.
+     */
+    public void stop() {
+        synchronized (lock) {
+            if (watcher != null) {
+                watcher.dispose();
+                watcher = null;
+            }
+            pending = null;
+            ready = false;
+            documents.clear();
+            for (Listener listener : listeners) {
+                listener.reset(List.of());
+            }
+        }
+    }
+
+    /**
+     * Whether the initial list has landed.
+     *
+     * @return true if the store and its listeners can serve reads
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Gets the stored equipment by name.
+     *
+     * @param name equipment name
+     * @return the stored equipment or null if absent
+     */
+    @Nullable
+    public Equipment get(String name) {
+        return documents.get(name);
+    }
+
+    /**
+     * Gets the number of stored equipments.
+     *
+     * @return equipments count
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    private void load(StoreWatcher loading, List<Equipment> equipments) {
+        synchronized (lock) {
+            if (watcher != loading || pending == null) {
+                // stopped or restarted while listing
+                return;
+            }
+            documents.clear();
+            for (Equipment equipment : equipments) {
+                documents.put(equipment.getMetadata().getName(), equipment);
+            }
+            for (Event event : pending) {
+                store(event.name(), event.equipment());
+            }
+            pending = null;
+            Collection<Equipment> loaded = Collections.unmodifiableCollection(documents.values());
+            for (Listener listener : listeners) {
+                listener.reset(loaded);
+            }
+            ready = true;
+        }
+    }
+
+    void onChanged(String name, @Nullable Equipment equipment) {
+        synchronized (lock) {
+            if (pending != null) {
+                pending.add(new Event(name, equipment));
+                return;
+            }
+            if (!ready) {
+                return;
+            }
+            Equipment previous = documents.get(name);
+            if (!store(name, equipment)) {
+                return;
+            }
+            for (Listener listener : listeners) {
+                listener.changed(previous, equipment);
+            }
+        }
+    }
+
+    void onGroupChanged() {
+        for (Listener listener : listeners) {
+            listener.groupChanged();
+        }
+    }
+
+    /**
+     * Stores or removes an equipment unless the event is stale.
+     *
+     * @return whether the store has changed
+     */
+    private boolean store(String name, @Nullable Equipment equipment) {
+        if (equipment == null) {
+            return documents.remove(name) != null;
+        }
+        if (isStale(equipment, documents.get(name))) {
+            return false;
+        }
+        documents.put(name, equipment);
+        return true;
+    }
+
+    private static boolean isStale(Equipment equipment, @Nullable Equipment stored) {
+        if (stored == null) {
+            return false;
+        }
+        Long version = equipment.getMetadata().getVersion();
+        Long storedVersion = stored.getMetadata().getVersion();
+        return version != null && storedVersion != null && version < storedVersion;
+    }
+
+    /**
+     * Receives the changes of the store, always called while the store is locked.
+     */
+    public interface Listener {
+
+        /**
+         * Replaces everything derived from the store.
+         *
+         * @param equipments every stored equipment, empty when the store stops
+         */
+        void reset(Collection<Equipment> equipments);
+
+        /**
+         * Applies a single change.
+         *
+         * @param previous the stored equipment before the change, null if it was added
+         * @param current the stored equipment after the change, null if it was deleted
+         */
+        void changed(@Nullable Equipment previous, @Nullable Equipment current);
+
+        /**
+         * Called when an {@link EquipmentGroup} changes.
+         */
+        default void groupChanged() {
+        }
+    }
+
+    private record Event(String name, @Nullable Equipment equipment) {
+    }
+
+    class StoreWatcher extends ExtensionWatcher {
+
+        @Override
+        public void onAdd(Extension extension) {
+            Equipment equipment = convert(extension, Equipment.class);
+            if (equipment != null) {
+                onChanged(equipment.getMetadata().getName(), equipment);
+            } else if (GROUP_GVK.equals(extension.groupVersionKind())) {
+                onGroupChanged();
+            }
+        }
+
+        @Override
+        public void onUpdate(Extension oldExtension, Extension newExtension) {
+            onAdd(newExtension);
+        }
+
+        @Override
+        public void onDelete(Extension extension) {
+            Equipment equipment = convert(extension, Equipment.class);
+            if (equipment != null) {
+                onChanged(equipment.getMetadata().getName(), null);
+            } else if (GROUP_GVK.equals(extension.groupVersionKind())) {
+                onGroupChanged();
+            }
+        }
+    }
+}
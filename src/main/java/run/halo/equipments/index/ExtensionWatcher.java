@@ -0,0 +1,61 @@
+package run.halo.equipments.index;
+
+import org.springframework.lang.Nullable;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.GroupVersionKind;
+import run.halo.app.extension.Unstructured;
+import run.halo.app.extension.Watcher;
+
+/**
+ * Base {@link Watcher} that handles disposal and converts watched extensions, which may be
+ * {@link Unstructured} when changed through the generic extension API.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public abstract class ExtensionWatcher implements Watcher {
+
+    private Runnable disposeHook;
+
+    private volatile boolean disposed;
+
+    @Override
+    public void registerDisposeHook(Runnable dispose) {
+        this.disposeHook = dispose;
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        if (disposeHook != null) {
+            disposeHook.run();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    /**
+     * Converts the watched extension to the given type.
+     *
+     * @param extension watched extension
+     * @param type extension type
+     * @param <E> extension type
+     * @return the converted extension or null if the extension is of another kind
+     */
+    @Nullable
+    public static <E extends Extension> E convert(@Nullable Extension extension, Class<E> type) {
+        if (extension == null) {
+            return null;
+        }
+        if (type.isInstance(extension)) {
+            return type.cast(extension);
+        }
+        if (!GroupVersionKind.fromExtension(type).equals(extension.groupVersionKind())) {
+            return null;
+        }
+        return Unstructured.OBJECT_MAPPER.convertValue(extension, type);
+    }
+}
@@ -0,0 +1,42 @@
+package run.halo.equipments.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import run.halo.app.extension.ListResult;
+
+/**
+ * Pagination helpers for lists that are already filtered and sorted in memory.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public enum ListResults {
+    ;
+
+    /**
+     * Slices a page out of the given list, all items are returned if size is not positive.
+     *
+     * @param items sorted items
+     * @param page page number, starts from 1
+     * @param size page size
+     * @param mapper item mapper, only applied to the items of the page
+     * @param <T> source item type
+     * @param <R> result item type
+     * @return a list result
+     */
+    public static <T, R> ListResult<R> page(List<T> items, int page, int size,
+        Function<T, R> mapper) {
+        int total = items.size();
+        List<T> slice = items;
+        if (size > 0) {
+            int from = (int) Math.min((Math.max(page, 1) - 1L) * size, total);
+            slice = items.subList(from, Math.min(from + size, total));
+        }
+        List<R> mapped = new ArrayList<>(slice.size());
+        for (T item : slice) {
+            mapped.add(mapper.apply(item));
+        }
+        return new ListResult<>(page, size, total, mapped);
+    }
+}
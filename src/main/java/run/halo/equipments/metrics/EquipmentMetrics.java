@@ -0,0 +1,188 @@
+package run.halo.equipments.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records latency and scan amplification of finder, service and router operations.
+ *
+ * <p>Meters are registered in {@link Metrics#globalRegistry}, which Halo's actuator
+ * publishes:
+ * <ul>
+ *     <li>{@value #OPERATION_TIMER}, tagged by operation and outcome, with a percentile
+ *     histogram for p99 alerts. It is not tagged by group, since every group would
+ *     multiply the histogram buckets</li>
+ *     <li>{@value #SCANNED_SUMMARY} and {@value #RETURNED_SUMMARY}, tagged by operation
+ *     and group, the extensions an operation examined and returned, their ratio is the
+ *     scan amplification</li>
+ * </ul>
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentMetrics {
+
+    public static final String OPERATION_TIMER = "equipments.operation";
+
+    public static final String SCANNED_SUMMARY = "equipments.scanned";
+
+    public static final String RETURNED_SUMMARY = "equipments.returned";
+
+    static final String ALL_GROUPS = "all";
+
+    static final String OTHER_GROUPS = "other";
+
+    /**
+     * Group names come from query parameters, distinct group tags are capped so that
+     * arbitrary values cannot grow the registry without bound.
+     */
+    static final int MAX_GROUP_TAGS = 200;
+
+    private final MeterRegistry registry = Metrics.globalRegistry;
+
+    private final Set<String> groupTags = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Observes an operation emitting a single result.
+     *
+     * @param operation operation name, e.g. <code>finder.listBy</code>
+     * @param group group the operation is scoped to, null for all groups
+     * @param source creates the operation from a scan to record into
+     * @param returnedOf counts the items of the result
+     * @param <T> result type
+     * @return the observed operation
+     */
+    public <T> Mono<T> observe(String operation, @Nullable String group,
+        Function<Scan, Mono<T>> source, ToIntFunction<T> returnedOf) {
+        return Mono.defer(() -> {
+            Scan scan = new Scan();
+            Timer.Sample sample = Timer.start(registry);
+            return source.apply(scan)
+                .doOnNext(result -> scan.returned(returnedOf.applyAsInt(result)))
+                .doFinally(signal -> record(operation, group, scan, sample, signal));
+        });
+    }
+
+    /**
+     * Observes an operation emitting many items, each item counts as returned.
+     *
+     * @param operation operation name
+     * @param group group the operation is scoped to, null for all groups
+     * @param source creates the operation from a scan to record into
+     * @param <T> item type
+     * @return the observed operation
+     */
+    public <T> Flux<T> observeMany(String operation, @Nullable String group,
+        Function<Scan, Flux<T>> source) {
+        return Flux.defer(() -> {
+            Scan scan = new Scan();
+            Timer.Sample sample = Timer.start(registry);
+            return source.apply(scan)
+                .doOnNext(item -> scan.returned(1))
+                .doFinally(signal -> record(operation, group, scan, sample, signal));
+        });
+    }
+
+    private void record(String operation, @Nullable String group, Scan scan,
+        Timer.Sample sample, SignalType signal) {
+        sample.stop(Timer.builder(OPERATION_TIMER)
+            .description("Latency of equipments operations.")
+            .tag("operation", operation)
+            .tag("outcome", outcome(signal))
+            .publishPercentileHistogram()
+            .register(registry));
+        if (scan.scanned.get() == 0 && scan.returned.get() == 0) {
+            return;
+        }
+        String groupTag = groupTag(group);
+        DistributionSummary.builder(SCANNED_SUMMARY)
+            .description("Extensions examined by an equipments operation.")
+            .tag("operation", operation)
+            .tag("group", groupTag)
+            .register(registry)
+            .record(scan.scanned.get());
+        DistributionSummary.builder(RETURNED_SUMMARY)
+            .description("Extensions returned by an equipments operation.")
+            .tag("operation", operation)
+            .tag("group", groupTag)
+            .register(registry)
+            .record(scan.returned.get());
+    }
+
+    private String groupTag(@Nullable String group) {
+        if (StringUtils.isBlank(group)) {
+            return ALL_GROUPS;
+        }
+        if (groupTags.contains(group)) {
+            return group;
+        }
+        // checks and adds at once, so that concurrent new groups cannot exceed the cap
+        synchronized (groupTags) {
+            if (groupTags.size() < MAX_GROUP_TAGS) {
+                groupTags.add(group);
+            }
+            return groupTags.contains(group) ? group : OTHER_GROUPS;
+        }
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+
+    /**
+     * Counts the extensions an operation examines and returns.
+     */
+    public static class Scan {
+
+        private final AtomicLong scanned = new AtomicLong();
+
+        private final AtomicLong returned = new AtomicLong();
+
+        /**
+         * Records extensions examined without a predicate, e.g. read from an index.
+         *
+         * @param count examined count
+         */
+        public void scanned(int count) {
+            scanned.addAndGet(count);
+        }
+
+        void returned(int count) {
+            returned.addAndGet(count);
+        }
+
+        /**
+         * Wraps a predicate handed to the extension client, counting every extension it
+         * is tested with.
+         *
+         * @param predicate predicate, null matches all
+         * @param <E> extension type
+         * @return a counting predicate
+         */
+        public <E> Predicate<E> counting(@Nullable Predicate<E> predicate) {
+            return item -> {
+                scanned.incrementAndGet();
+                return predicate == null || predicate.test(item);
+            };
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package run.halo.equipments.reconciler;
+
+import java.util.Objects;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import run.halo.app.extension.ExtensionClient;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Writes the indexed equipments count into {@link EquipmentGroup.PostGroupStatus}.
+ *
+ * <p>The count is read from {@link EquipmentIndex} instead of scanning the store, and the
+ * write is retried when another writer updated the group in the meantime.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentCountUpdater {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final ExtensionClient client;
+
+    private final EquipmentIndex equipmentIndex;
+
+    public EquipmentCountUpdater(ExtensionClient client, EquipmentIndex equipmentIndex) {
+        this.client = client;
+        this.equipmentIndex = equipmentIndex;
+    }
+
+    /**
+     * Refreshes <code>status.equipmentCount</code> of the given group.
+     *
+     * @param groupName group name, nothing happens if null or the group does not exist
+     */
+    public void refresh(@Nullable String groupName) {
+        if (groupName == null) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            var group = client.fetch(EquipmentGroup.class, groupName).orElse(null);
+            if (group == null || group.getMetadata().getDeletionTimestamp() != null) {
+                return;
+            }
+            int count = equipmentIndex.count(groupName);
+            var status = group.getStatusOrDefault();
+            if (Objects.equals(status.getEquipmentCount(), count)) {
+                return;
+            }
+            status.setEquipmentCount(count);
+            try {
+                client.update(group);
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package run.halo.equipments.reconciler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import run.halo.app.extension.ExtensionClient;
+import run.halo.app.extension.controller.Controller;
+import run.halo.app.extension.controller.ControllerBuilder;
+import run.halo.app.extension.controller.Reconciler;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Reconciler for {@link EquipmentGroup}.
+ *
+ * <p>Initializes <code>status.equipmentCount</code> for groups that are created after their
+ * equipments, e.g. when restoring a backup.
+ *
+ * <p>A deleted group is held by {@link #FINALIZER_NAME} while its equipments are deleted in
+ * batches of {@link #DELETE_BATCH_SIZE}, one write at a time. The equipments are listed
+ * once per deletion and the batches take the next names from that list. Progress is written into
+ * <code>status.deletedEquipmentCount</code> and <code>status.equipmentCount</code> after
+ * each batch, and since the finalizer survives a restart, deletion resumes where it
+ * stopped.
+ *
+ * <p>The finalizer is removed from every group by {@link #releaseFinalizers()} when the
+ * plugin stops, so that deleting a group does not hang while nothing reconciles it. A
+ * group deleted while the plugin is stopped leaves its equipments ungrouped.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+@Component
+public class EquipmentGroupReconciler implements Reconciler<Reconciler.Request> {
+
+    public static final String FINALIZER_NAME = "equipment-group-protection";
+
+    static final int DELETE_BATCH_SIZE = 50;
+
+    private static final Duration INDEX_RETRY = Duration.ofSeconds(1);
+
+    private static final Duration NEXT_BATCH = Duration.ofMillis(100);
+
+    private final ExtensionClient client;
+
+    private final EquipmentIndex equipmentIndex;
+
+    private final EquipmentCountUpdater equipmentCountUpdater;
+
+    private final Map<String, Deque<String>> pendingDeletes = new ConcurrentHashMap<>();
+
+    private volatile boolean released;
+
+    public EquipmentGroupReconciler(ExtensionClient client, EquipmentIndex equipmentIndex,
+        EquipmentCountUpdater equipmentCountUpdater) {
+        this.client = client;
+        this.equipmentIndex = equipmentIndex;
+        this.equipmentCountUpdater = equipmentCountUpdater;
+    }
+
+    @Override
+    public Result reconcile(Request request) {
+        if (!equipmentIndex.isReady()) {
+            return new Result(true, INDEX_RETRY);
+        }
+        var group = client.fetch(EquipmentGroup.class, request.name()).orElse(null);
+        if (group == null) {
+            pendingDeletes.remove(request.name());
+            return Result.doNotRetry();
+        }
+        if (group.getMetadata().getDeletionTimestamp() != null) {
+            return cleanUp(group);
+        }
+        if (!released && Finalizers.of(group.getMetadata()).add(FINALIZER_NAME)) {
+            client.update(group);
+        }
+        equipmentCountUpdater.refresh(request.name());
+        return Result.doNotRetry();
+    }
+
+    /**
+     * Removes {@link #FINALIZER_NAME} from every group and stops adding it, called when the
+     * plugin stops or is uninstalled.
+     */
+    public void releaseFinalizers() {
+        released = true;
+        pendingDeletes.clear();
+        int count = Finalizers.release(client, EquipmentGroup.class, FINALIZER_NAME);
+        log.debug("Removed finalizer {} from {} groups.", FINALIZER_NAME, count);
+    }
+
+    @Override
+    public Controller setupWith(ControllerBuilder builder) {
+        return builder
+            .extension(new EquipmentGroup())
+            .build();
+    }
+
+    private Result cleanUp(EquipmentGroup group) {
+        var metadata = group.getMetadata();
+        if (!Finalizers.of(metadata).contains(FINALIZER_NAME)) {
+            pendingDeletes.remove(metadata.getName());
+            return Result.doNotRetry();
+        }
+        // listed once and drained batch by batch, relisted after the last batch to catch
+        // equipments added meanwhile
+        Deque<String> pending = pendingDeletes.computeIfAbsent(metadata.getName(),
+            name -> equipmentIndex.listBy(name).stream()
+                .map(equipment -> equipment.getMetadata().getName())
+                .collect(Collectors.toCollection(ArrayDeque::new)));
+        int deleted = 0;
+        while (deleted < DELETE_BATCH_SIZE && !pending.isEmpty()) {
+            // the list may be stale, e.g. relisted before the index saw the last deletions
+            var equipment = client.fetch(Equipment.class, pending.poll()).orElse(null);
+            if (equipment != null && !equipment.isDeleted()
+                && metadata.getName().equals(equipment.getSpec().getGroupName())) {
+                client.delete(equipment);
+                deleted++;
+            }
+        }
+        if (pending.isEmpty()) {
+            pendingDeletes.remove(metadata.getName());
+        }
+        if (deleted == 0) {
+            Finalizers.of(metadata).remove(FINALIZER_NAME);
+            client.update(group);
+            return Result.doNotRetry();
+        }
+        var status = group.getStatusOrDefault();
+        int total = status.getDeletedEquipmentCount() == null ? 0
+            : status.getDeletedEquipmentCount();
+        status.setDeletedEquipmentCount(total + deleted);
+        status.setEquipmentCount(pending.size());
+        try {
+            client.update(group);
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Group [{}] changed while deleting equipments, the progress of this "
+                + "batch is not recorded.", metadata.getName());
+        }
+        return new Result(true, NEXT_BATCH);
+    }
+}
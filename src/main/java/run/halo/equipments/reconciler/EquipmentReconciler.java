@@ -0,0 +1,157 @@
+package run.halo.equipments.reconciler;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+import run.halo.app.extension.ExtensionClient;
+import run.halo.app.extension.MetadataOperator;
+import run.halo.app.extension.controller.Controller;
+import run.halo.app.extension.controller.ControllerBuilder;
+import run.halo.app.extension.controller.Reconciler;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.cover.CoverProbe;
+import run.halo.equipments.cover.CoverVariants;
+import run.halo.equipments.index.EquipmentIndex;
+
+/**
+ * Reconciler for {@link Equipment}.
+ *
+ * <p>Keeps <code>status.equipmentCount</code> of the owning groups up to date. The group an
+ * equipment was last counted in is recorded in {@link #GROUP_NAME_LABEL}, so that moving an
+ * equipment refreshes both the old and the new group. The group of a deleted equipment is
+ * remembered from its last reconcile, so no finalizer is needed to hold it; groups missed
+ * while the plugin was stopped are recounted by {@link EquipmentGroupReconciler} on start.
+ * {@link #LEGACY_FINALIZER_NAME}, added by earlier versions, is removed when seen.
+ *
+ * <p>Local covers that have not been probed yet are submitted to {@link CoverProbe}, and the
+ * request is retried later if its queue is full. Metadata of a cover that is not local is
+ * cleared, since only local covers are probed.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentReconciler implements Reconciler<Reconciler.Request> {
+
+    public static final String LEGACY_FINALIZER_NAME = "equipment-protection";
+
+    public static final String GROUP_NAME_LABEL = "equipments.halo.run/group-name";
+
+    private static final Duration INDEX_LAG_RETRY = Duration.ofSeconds(1);
+
+    private static final Duration PROBE_RETRY = Duration.ofSeconds(30);
+
+    private final ExtensionClient client;
+
+    private final EquipmentIndex equipmentIndex;
+
+    private final EquipmentCountUpdater equipmentCountUpdater;
+
+    private final CoverProbe coverProbe;
+
+    private final Map<String, String> countedGroups = new ConcurrentHashMap<>();
+
+    public EquipmentReconciler(ExtensionClient client, EquipmentIndex equipmentIndex,
+        EquipmentCountUpdater equipmentCountUpdater, CoverProbe coverProbe) {
+        this.client = client;
+        this.equipmentIndex = equipmentIndex;
+        this.equipmentCountUpdater = equipmentCountUpdater;
+        this.coverProbe = coverProbe;
+    }
+
+    @Override
+    public Result reconcile(Request request) {
+        var equipment = client.fetch(Equipment.class, request.name()).orElse(null);
+        if (equipment == null) {
+            if (!equipmentIndex.isReady() || equipmentIndex.get(request.name()) != null) {
+                return new Result(true, INDEX_LAG_RETRY);
+            }
+            equipmentCountUpdater.refresh(countedGroups.remove(request.name()));
+            return Result.doNotRetry();
+        }
+        if (!isIndexed(equipment)) {
+            // counts are read from the index, wait until it has seen this change
+            return new Result(true, INDEX_LAG_RETRY);
+        }
+        var metadata = equipment.getMetadata();
+        String countedGroup = labels(metadata).get(GROUP_NAME_LABEL);
+        if (equipment.isDeleted()) {
+            countedGroups.remove(request.name());
+            equipmentCountUpdater.refresh(countedGroup);
+            if (Finalizers.of(metadata).remove(LEGACY_FINALIZER_NAME)) {
+                client.update(equipment);
+            }
+            return Result.doNotRetry();
+        }
+
+        String groupName = equipment.getSpec().getGroupName();
+        boolean changed = Finalizers.of(metadata).remove(LEGACY_FINALIZER_NAME);
+        if (!Objects.equals(countedGroup, groupName)) {
+            if (groupName == null) {
+                labels(metadata).remove(GROUP_NAME_LABEL);
+            } else {
+                labels(metadata).put(GROUP_NAME_LABEL, groupName);
+            }
+            changed = true;
+        }
+        var status = equipment.getStatus();
+        if (!CoverVariants.isLocal(equipment.getSpec().getCover()) && status != null
+            && status.getCover() != null) {
+            status.setCover(null);
+            changed = true;
+        }
+        if (changed) {
+            client.update(equipment);
+        }
+        if (!Objects.equals(countedGroup, groupName)) {
+            equipmentCountUpdater.refresh(countedGroup);
+        }
+        equipmentCountUpdater.refresh(groupName);
+        if (groupName == null) {
+            countedGroups.remove(request.name());
+        } else {
+            countedGroups.put(request.name(), groupName);
+        }
+        if (CoverProbe.needsProbe(equipment) && !coverProbe.submit(request.name())) {
+            return new Result(true, PROBE_RETRY);
+        }
+        return Result.doNotRetry();
+    }
+
+    /**
+     * Removes {@link #LEGACY_FINALIZER_NAME} from the equipments not reconciled yet, called
+     * when the plugin stops or is uninstalled.
+     */
+    public void releaseFinalizers() {
+        Finalizers.release(client, Equipment.class, LEGACY_FINALIZER_NAME);
+    }
+
+    @Override
+    public Controller setupWith(ControllerBuilder builder) {
+        return builder
+            .extension(new Equipment())
+            .build();
+    }
+
+    private boolean isIndexed(Equipment equipment) {
+        if (!equipmentIndex.isReady()) {
+            return false;
+        }
+        var indexed = equipmentIndex.get(equipment.getMetadata().getName());
+        if (!EquipmentIndex.isIndexable(equipment)) {
+            return indexed == null;
+        }
+        return indexed != null && Objects.equals(indexed.getSpec().getGroupName(),
+            equipment.getSpec().getGroupName());
+    }
+
+    private static Map<String, String> labels(MetadataOperator metadata) {
+        if (metadata.getLabels() == null) {
+            metadata.setLabels(new HashMap<>());
+        }
+        return metadata.getLabels();
+    }
+}
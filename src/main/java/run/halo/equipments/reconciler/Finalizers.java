@@ -0,0 +1,89 @@
+package run.halo.equipments.reconciler;
+
+import java.util.HashSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.ExtensionClient;
+import run.halo.app.extension.MetadataOperator;
+
+/**
+ * Helpers for the finalizers this plugin puts on extensions.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+final class Finalizers {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private Finalizers() {
+    }
+
+    /**
+     * Gets the mutable finalizers of the metadata, creating them if missing.
+     */
+    static Set<String> of(MetadataOperator metadata) {
+        if (metadata.getFinalizers() == null) {
+            metadata.setFinalizers(new HashSet<>());
+        }
+        return metadata.getFinalizers();
+    }
+
+    /**
+     * Removes a finalizer from every extension of the type that carries it, so that their
+     * deletes do not wait for a reconciler that is no longer running. An extension that
+     * fails to be updated is logged and skipped.
+     *
+     * @param client extension client
+     * @param type extension type
+     * @param finalizer finalizer name
+     * @return the number of extensions the finalizer was removed from
+     */
+    static <E extends Extension> int release(ExtensionClient client, Class<E> type,
+        String finalizer) {
+        int released = 0;
+        for (E extension : client.list(type, candidate -> carries(candidate, finalizer),
+            null)) {
+            try {
+                if (release(client, type, extension, finalizer)) {
+                    released++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to remove finalizer {} from {}.", finalizer,
+                    extension.getMetadata().getName(), e);
+            }
+        }
+        return released;
+    }
+
+    private static <E extends Extension> boolean release(ExtensionClient client,
+        Class<E> type, E extension, String finalizer) {
+        E current = extension;
+        for (int attempt = 1; ; attempt++) {
+            if (!carries(current, finalizer)) {
+                return false;
+            }
+            current.getMetadata().getFinalizers().remove(finalizer);
+            try {
+                client.update(current);
+                return true;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                current = client.fetch(type, extension.getMetadata().getName()).orElse(null);
+                if (current == null) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private static boolean carries(Extension extension, String finalizer) {
+        Set<String> finalizers = extension.getMetadata().getFinalizers();
+        return finalizers != null && finalizers.contains(finalizer);
+    }
+}
@@ -4,6 +4,8 @@ import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
 import run.halo.app.extension.router.IListRequest.QueryListRequest;
 import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.ReorderRequest;
+import run.halo.equipments.ReorderResult;
 
 /**
  * A service for {@link EquipmentGroup}.
@@ -22,11 +24,20 @@ public interface EquipmentGroupService {
     Mono<ListResult<EquipmentGroup>> listEquipmentGroup(QueryListRequest request);
     
     /**
-     * Create a equipment group.
+     * Delete a equipment group. Its equipments are deleted in the background, the group is
+     * kept with a deletion timestamp until all of them are gone.
      *
      * @param name name
-     * @return a mono of equipment group
+     * @return a mono of the group pending deletion
      */
     Mono<EquipmentGroup> deleteEquipmentGroup(String name);
     
+    /**
+     * Move a equipment group between two neighbours, writing as few priorities as possible.
+     *
+     * @param request move
+     * @return a mono of the written priorities
+     */
+    Mono<ReorderResult> reorderEquipmentGroup(ReorderRequest request);
+    
 }
@@ -1,9 +1,14 @@
 package run.halo.equipments.service;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
+import run.halo.equipments.CursorListResult;
 import run.halo.equipments.Equipment;
 import run.halo.equipments.EquipmentQuery;
+import run.halo.equipments.ReorderRequest;
+import run.halo.equipments.ReorderResult;
+import run.halo.equipments.index.EquipmentQueryPlan;
 
 /**
  * A service for {@link Equipment}.
@@ -20,4 +25,41 @@ public interface EquipmentService {
      * @return a mono of list result
      */
     Mono<ListResult<Equipment>> listEquipment(EquipmentQuery query);
+    
+    /**
+     * Stream equipments in the order of the query, without collecting them first. All
+     * matched equipments are emitted unless the query has a positive page size.
+     *
+     * @param query query
+     * @return a flux of equipments, cancelling it stops the underlying scan
+     */
+    Flux<Equipment> streamEquipment(EquipmentQuery query);
+    
+    /**
+     * List equipments by keyset pagination, the page starts after
+     * {@link EquipmentQuery#getCursor()}. {@link run.halo.equipments.EquipmentSorter#RELEVANCE}
+     * is rejected, since a relevance score can not be resumed from a cursor.
+     *
+     * @param query query
+     * @return a mono of cursor list result
+     */
+    Mono<CursorListResult<Equipment>> scrollEquipment(EquipmentQuery query);
+    
+    /**
+     * Explain how {@link #listEquipment(EquipmentQuery)} would read the equipments of the
+     * query.
+     *
+     * @param query query
+     * @return a mono of the chosen plan with its cost estimates
+     */
+    Mono<EquipmentQueryPlan> explainEquipment(EquipmentQuery query);
+    
+    /**
+     * Move an equipment between two neighbours of its group, writing as few priorities as
+     * possible.
+     *
+     * @param request move
+     * @return a mono of the written priorities
+     */
+    Mono<ReorderResult> reorderEquipment(ReorderRequest request);
 }
@@ -0,0 +1,32 @@
+package run.halo.equipments.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Flux;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.EquipmentImportResult;
+
+/**
+ * Bulk import and export of {@link EquipmentGroup} and {@link Equipment}.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+public interface EquipmentTransferService {
+
+    /**
+     * Export all groups followed by all equipments, one extension per element, so that the
+     * output can be imported in order.
+     *
+     * @return a flux of extensions
+     */
+    Flux<JsonNode> exportAll();
+
+    /**
+     * Import extensions, one per line, creating or updating them by name.
+     *
+     * @param lines lines of JSON, blank lines are skipped
+     * @return a flux of results, one per non-blank line in the order of input
+     */
+    Flux<EquipmentImportResult> importAll(Flux<String> lines);
+}
@@ -2,18 +2,20 @@ package run.halo.equipments.service.impl;
 
 import static run.halo.app.extension.router.selector.SelectorUtil.labelAndFieldSelectorToPredicate;
 
-import java.util.function.Function;
+import java.util.HashSet;
 import java.util.function.Predicate;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
-import org.springframework.util.Assert;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.ListResult;
 import run.halo.app.extension.ReactiveExtensionClient;
 import run.halo.app.extension.router.IListRequest.QueryListRequest;
 import run.halo.equipments.Equipment;
 import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.ReorderRequest;
+import run.halo.equipments.ReorderResult;
+import run.halo.equipments.finders.impl.DefaultOrder;
+import run.halo.equipments.metrics.EquipmentMetrics;
+import run.halo.equipments.reconciler.EquipmentGroupReconciler;
 import run.halo.equipments.service.EquipmentGroupService;
 
 /**
@@ -25,52 +27,69 @@ import run.halo.equipments.service.EquipmentGroupService;
 @Component
 public class EquipmentGroupServiceImpl implements EquipmentGroupService {
     
+    private static final PriorityReorder<EquipmentGroup> REORDER = new PriorityReorder<>(
+        group -> group.getSpec().getPriority(),
+        (group, priority) -> group.getSpec().setPriority(priority));
+    
     private final ReactiveExtensionClient client;
     
-    public EquipmentGroupServiceImpl(ReactiveExtensionClient client) {
+    private final EquipmentMetrics metrics;
+    
+    public EquipmentGroupServiceImpl(ReactiveExtensionClient client, EquipmentMetrics metrics) {
         this.client = client;
+        this.metrics = metrics;
     }
     
-    @SuppressWarnings("checkstyle:Indentation")
     @Override
     public Mono<ListResult<EquipmentGroup>> listEquipmentGroup(QueryListRequest query) {
-        return this.client.list(EquipmentGroup.class, equipmentListPredicate(query),
-            null, query.getPage(), query.getSize()
-        ).flatMap(listResult -> Flux.fromStream(
-                listResult.get().map(this::populateEquipments))
-            .concatMap(Function.identity())
-            .collectList()
-            .map(groups -> new ListResult<>(listResult.getPage(),
-                listResult.getSize(), listResult.getTotal(), groups
-            )));
+        return metrics.observe("service.listEquipmentGroup", null,
+            scan -> this.client.list(EquipmentGroup.class,
+                scan.counting(equipmentListPredicate(query)), null, query.getPage(),
+                query.getSize()
+            ).doOnNext(listResult -> listResult.get().forEach(this::populateEquipments)),
+            result -> result.getItems().size());
     }
     
     @Override
     public Mono<EquipmentGroup> deleteEquipmentGroup(String name) {
-        return this.client.fetch(EquipmentGroup.class, name).flatMap(
-            equipmentGroup -> this.client.delete(equipmentGroup)
-                .flatMap(deleted -> this.client.list(Equipment.class,
-                    (equipment) -> StringUtils.equals(name,
-                        equipment.getSpec().getGroupName()
-                    ), null
-                ).flatMap(this.client::delete).then(Mono.just(deleted))));
+        return metrics.observe("service.deleteEquipmentGroup", name,
+            scan -> markForDeletion(name), group -> 0);
+    }
+    
+    @Override
+    public Mono<ReorderResult> reorderEquipmentGroup(ReorderRequest request) {
+        // groups pending deletion are still listed by the console, so they are kept in place
+        return metrics.observe("service.reorderEquipmentGroup", null,
+            scan -> this.client.list(EquipmentGroup.class, scan.counting(null), null)
+                .collectList()
+                .doOnNext(DefaultOrder::sortGroups)
+                .map(groups -> REORDER.move(groups, request))
+                .flatMap(plan -> REORDER.write(plan, this.client)),
+            result -> result.getUpdated().size());
     }
     
-    private Mono<EquipmentGroup> populateEquipments(EquipmentGroup equipmentGroup) {
-        return Mono.just(equipmentGroup).flatMap(fg -> fetchEquipmentCount(fg).doOnNext(
-                count -> fg.getStatusOrDefault().setEquipmentCount(count))
-            .thenReturn(fg));
+    private Mono<EquipmentGroup> markForDeletion(String name) {
+        // equipments are deleted by EquipmentGroupReconciler before the finalizer is removed
+        return this.client.fetch(EquipmentGroup.class, name)
+            .flatMap(equipmentGroup -> {
+                var metadata = equipmentGroup.getMetadata();
+                if (metadata.getFinalizers() == null) {
+                    metadata.setFinalizers(new HashSet<>());
+                }
+                if (metadata.getFinalizers().add(EquipmentGroupReconciler.FINALIZER_NAME)) {
+                    return this.client.update(equipmentGroup);
+                }
+                return Mono.just(equipmentGroup);
+            })
+            .flatMap(this.client::delete);
     }
     
-    @SuppressWarnings("checkstyle:OperatorWrap")
-    Mono<Integer> fetchEquipmentCount(EquipmentGroup equipmentGroup) {
-        Assert.notNull(equipmentGroup, "The equipmentGroup must not be null.");
-        String name = equipmentGroup.getMetadata().getName();
-        return client.list(Equipment.class, equipment -> !equipment.isDeleted()
-                && equipment.getSpec().getGroupName().equals(name), null)
-            .count()
-            .defaultIfEmpty(0L)
-            .map(Long::intValue);
+    private void populateEquipments(EquipmentGroup equipmentGroup) {
+        // equipmentCount is maintained by EquipmentReconciler
+        EquipmentGroup.PostGroupStatus status = equipmentGroup.getStatusOrDefault();
+        if (status.getEquipmentCount() == null) {
+            status.setEquipmentCount(0);
+        }
     }
     
     Predicate<EquipmentGroup> equipmentListPredicate(QueryListRequest query) {
@@ -2,17 +2,40 @@ package run.halo.equipments.service.impl;
 
 import static run.halo.app.extension.router.selector.SelectorUtil.labelAndFieldSelectorToPredicate;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import run.halo.app.extension.Extension;
 import run.halo.app.extension.ListResult;
 import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.CursorListResult;
 import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentCursor;
 import run.halo.equipments.EquipmentQuery;
 import run.halo.equipments.EquipmentSorter;
+import run.halo.equipments.ModelConst;
+import run.halo.equipments.ReorderRequest;
+import run.halo.equipments.ReorderResult;
+import run.halo.equipments.SingleFlight;
+import run.halo.equipments.finders.impl.DefaultOrder;
+import run.halo.equipments.index.EquipmentQueryPlan;
+import run.halo.equipments.index.EquipmentQueryPlanner;
+import run.halo.equipments.index.EquipmentSearchIndex;
+import run.halo.equipments.index.EquipmentSortIndex;
+import run.halo.equipments.index.ListResults;
+import run.halo.equipments.metrics.EquipmentMetrics;
 import run.halo.equipments.service.EquipmentService;
 
 /**
@@ -24,32 +47,276 @@ import run.halo.equipments.service.EquipmentService;
 @Component
 public class EquipmentServiceImpl implements EquipmentService {
     
+    /**
+     * Equipments requested from the index at a time while streaming, which bounds the
+     * equipments buffered ahead of a slow client.
+     */
+    static final int STREAM_CHUNK_SIZE = 256;
+    
+    private static final PriorityReorder<Equipment> REORDER = new PriorityReorder<>(
+        equipment -> equipment.getSpec().getPriority(),
+        (equipment, priority) -> equipment.getSpec().setPriority(priority));
+    
     private final ReactiveExtensionClient client;
     
-    public EquipmentServiceImpl(ReactiveExtensionClient client) {
+    private final EquipmentSearchIndex searchIndex;
+    
+    private final EquipmentSortIndex sortIndex;
+    
+    private final EquipmentQueryPlanner planner;
+    
+    private final EquipmentMetrics metrics;
+    
+    private final SingleFlight<String> flights = new SingleFlight<>();
+    
+    public EquipmentServiceImpl(ReactiveExtensionClient client,
+        EquipmentSearchIndex searchIndex, EquipmentSortIndex sortIndex,
+        EquipmentQueryPlanner planner, EquipmentMetrics metrics) {
         this.client = client;
+        this.searchIndex = searchIndex;
+        this.sortIndex = sortIndex;
+        this.planner = planner;
+        this.metrics = metrics;
     }
     
     @Override
     public Mono<ListResult<Equipment>> listEquipment(EquipmentQuery query) {
+        return flights.execute("list:" + query.normalizedKey(),
+            () -> metrics.observe("service.listEquipment", query.getGroup(),
+                scan -> listEquipment(query, scan), result -> result.getItems().size()));
+    }
+    
+    private Mono<ListResult<Equipment>> listEquipment(EquipmentQuery query,
+        EquipmentMetrics.Scan scan) {
         Comparator<Equipment> comparator = EquipmentSorter.from(query.getSort(),
             query.getSortOrder()
         );
-        return this.client.list(Equipment.class, equipmentListPredicate(query),
+        String keyword = query.getKeyword();
+        if (keyword != null && searchIndex.isReady()) {
+            return Mono.fromSupplier(() -> searchEquipment(query, comparator, scan));
+        }
+        if (keyword == null && sortIndex.isReady()) {
+            return Mono.fromSupplier(() -> listSorted(query, scan));
+        }
+        return this.client.list(Equipment.class, scan.counting(equipmentListPredicate(query)),
             comparator, query.getPage(), query.getSize()
         );
     }
     
-    Predicate<Equipment> equipmentListPredicate(EquipmentQuery query) {
-        Predicate<Equipment> predicate = equipment -> true;
+    @Override
+    public Flux<Equipment> streamEquipment(EquipmentQuery query) {
+        return metrics.observeMany("service.streamEquipment", query.getGroup(),
+                scan -> streamEquipment(query, scan))
+            .limitRate(STREAM_CHUNK_SIZE);
+    }
+    
+    private Flux<Equipment> streamEquipment(EquipmentQuery query,
+        EquipmentMetrics.Scan scan) {
+        Comparator<Equipment> comparator = EquipmentSorter.from(query.getSort(),
+            query.getSortOrder()
+        );
         String keyword = query.getKeyword();
-        
-        if (keyword != null) {
-            predicate = predicate.and(equipment -> {
-                String displayName = equipment.getSpec().getDisplayName();
-                return StringUtils.containsIgnoreCase(displayName, keyword);
+        Flux<Equipment> equipments;
+        if (keyword != null && searchIndex.isReady()) {
+            // hits are ranked before the first one can be written, they are few though
+            equipments = Flux.defer(() -> Flux.fromIterable(
+                rankedHits(query, comparator, scan))).map(EquipmentSearchIndex.Hit::equipment);
+        } else if (keyword == null && sortIndex.isReady()) {
+            // the snapshot is walked lazily, so a cancelled stream stops the scan
+            equipments = Flux.defer(() -> {
+                List<Equipment> ordered = sortIndex.list(query.getSort(),
+                    Objects.equals(true, query.getSortOrder()));
+                return Flux.fromIterable(ordered).filter(scan.counting(filterPredicate(query)));
             });
+        } else {
+            equipments = this.client.list(Equipment.class,
+                scan.counting(equipmentListPredicate(query)), comparator);
+        }
+        int size = query.getSize();
+        if (size > 0) {
+            equipments = equipments.skip((Math.max(query.getPage(), 1) - 1L) * size)
+                .take(size);
+        }
+        return equipments;
+    }
+    
+    @Override
+    public Mono<EquipmentQueryPlan> explainEquipment(EquipmentQuery query) {
+        if (!searchIndex.isReady()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "The equipment index is still being built."));
+        }
+        return Mono.fromSupplier(() -> planner.plan(query));
+    }
+    
+    @Override
+    public Mono<ReorderResult> reorderEquipment(ReorderRequest request) {
+        return metrics.observe("service.reorderEquipment", null,
+            scan -> Mono.justOrEmpty(request.getName())
+                .filter(StringUtils::isNotBlank)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException(
+                    "The name of the moved equipment is required.")))
+                .flatMap(name -> this.client.fetch(Equipment.class, name)
+                    .switchIfEmpty(Mono.error(() -> new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Equipment not found: " + name))))
+                .flatMap(moved -> {
+                    // equipments are only ordered within their group
+                    String group = moved.getSpec().getGroupName();
+                    return this.client.list(Equipment.class, scan.counting(
+                            equipment -> Objects.equals(group,
+                                equipment.getSpec().getGroupName())), null)
+                        .collectList()
+                        .doOnNext(DefaultOrder::sortEquipments);
+                })
+                .map(equipments -> REORDER.move(equipments, request))
+                .flatMap(plan -> REORDER.write(plan, this.client)),
+            result -> result.getUpdated().size());
+    }
+    
+    private ListResult<Equipment> listSorted(EquipmentQuery query,
+        EquipmentMetrics.Scan scan) {
+        if (isFiltered(query) && searchIndex.isReady()) {
+            EquipmentQueryPlan plan = planner.plan(query);
+            if (EquipmentQueryPlan.Strategy.INDEX.equals(plan.getStrategy())) {
+                List<Equipment> matched = new ArrayList<>();
+                for (EquipmentSearchIndex.Hit hit : planner.execute(plan, scan)) {
+                    matched.add(hit.equipment());
+                }
+                matched.sort(EquipmentSorter.from(query.getSort(), query.getSortOrder()));
+                return ListResults.page(matched, query.getPage(), query.getSize(),
+                    Function.identity()
+                );
+            }
         }
+        List<Equipment> ordered = sortIndex.list(query.getSort(),
+            Objects.equals(true, query.getSortOrder()));
+        if (isFiltered(query)) {
+            Predicate<Equipment> predicate = scan.counting(filterPredicate(query));
+            List<Equipment> matched = new ArrayList<>();
+            for (Equipment equipment : ordered) {
+                if (predicate.test(equipment)) {
+                    matched.add(equipment);
+                }
+            }
+            ordered = matched;
+        }
+        ListResult<Equipment> result = ListResults.page(ordered, query.getPage(),
+            query.getSize(), Function.identity()
+        );
+        if (!isFiltered(query)) {
+            // only the requested page of the sort index is touched
+            scan.scanned(result.getItems().size());
+        }
+        return result;
+    }
+    
+    @Override
+    public Mono<CursorListResult<Equipment>> scrollEquipment(EquipmentQuery query) {
+        return flights.execute("scroll:" + query.normalizedKey(),
+            () -> scrollEquipmentOnce(query));
+    }
+    
+    private Mono<CursorListResult<Equipment>> scrollEquipmentOnce(EquipmentQuery query) {
+        EquipmentSorter sort = query.getSort();
+        if (EquipmentSorter.RELEVANCE.equals(sort)) {
+            // the keyset only holds the fields of a sorter, not the score of a keyword
+            return Mono.error(new ServerWebInputException(
+                "RELEVANCE can not be used with keyset pagination."));
+        }
+        boolean ascending = Objects.equals(true, query.getSortOrder());
+        Comparator<Equipment> comparator = EquipmentSorter.from(sort, ascending);
+        int size = query.getSize() > 0 ? query.getSize() : ModelConst.DEFAULT_PAGE_SIZE;
+        EquipmentCursor cursor;
+        try {
+            cursor = EquipmentCursor.decode(query.getCursor());
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ServerWebInputException(e.getMessage()));
+        }
+        if (cursor != null && !cursor.matches(sort, ascending)) {
+            return Mono.error(new ServerWebInputException(
+                "The cursor was created with another sort order."));
+        }
+        if (query.getKeyword() == null && sortIndex.isReady()) {
+            EquipmentCursor after = cursor;
+            return Mono.fromSupplier(() -> CursorListResult.of(
+                scrollSorted(query, after, comparator, size + 1), size,
+                equipment -> EquipmentCursor.after(equipment, sort, ascending),
+                Function.identity()
+            ));
+        }
+        Predicate<Equipment> predicate = equipmentListPredicate(query);
+        if (cursor != null) {
+            Equipment probe = cursor.toProbe();
+            predicate = predicate.and(equipment -> comparator.compare(equipment, probe) > 0);
+        }
+        return this.client.list(Equipment.class, predicate, comparator)
+            .take(size + 1)
+            .collectList()
+            .map(equipments -> CursorListResult.of(equipments, size,
+                equipment -> EquipmentCursor.after(equipment, sort, ascending),
+                Function.identity()
+            ));
+    }
+    
+    private List<Equipment> scrollSorted(EquipmentQuery query, EquipmentCursor cursor,
+        Comparator<Equipment> comparator, int limit) {
+        List<Equipment> ordered = sortIndex.list(query.getSort(),
+            Objects.equals(true, query.getSortOrder()));
+        int from = 0;
+        if (cursor != null) {
+            int index = Collections.binarySearch(ordered, cursor.toProbe(), comparator);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+        Predicate<Equipment> predicate = filterPredicate(query);
+        List<Equipment> equipments = new ArrayList<>(limit);
+        for (int i = from; i < ordered.size() && equipments.size() < limit; i++) {
+            Equipment equipment = ordered.get(i);
+            if (predicate.test(equipment)) {
+                equipments.add(equipment);
+            }
+        }
+        return equipments;
+    }
+    
+    private boolean isFiltered(EquipmentQuery query) {
+        return query.getGroup() != null
+            || !CollectionUtils.isEmpty(query.getLabelSelector())
+            || !CollectionUtils.isEmpty(query.getFieldSelector());
+    }
+    
+    private ListResult<Equipment> searchEquipment(EquipmentQuery query,
+        Comparator<Equipment> comparator, EquipmentMetrics.Scan scan) {
+        return ListResults.page(rankedHits(query, comparator, scan), query.getPage(),
+            query.getSize(), EquipmentSearchIndex.Hit::equipment
+        );
+    }
+    
+    private List<EquipmentSearchIndex.Hit> rankedHits(EquipmentQuery query,
+        Comparator<Equipment> comparator, EquipmentMetrics.Scan scan) {
+        List<EquipmentSearchIndex.Hit> hits = planner.execute(planner.plan(query), scan);
+        Comparator<EquipmentSearchIndex.Hit> hitComparator =
+            Comparator.comparing(EquipmentSearchIndex.Hit::equipment, comparator);
+        if (EquipmentSorter.RELEVANCE.equals(query.getSort())) {
+            hitComparator = Comparator.comparingInt(EquipmentSearchIndex.Hit::score)
+                .reversed()
+                .thenComparing(hitComparator);
+        }
+        hits.sort(hitComparator);
+        return hits;
+    }
+    
+    Predicate<Equipment> equipmentListPredicate(EquipmentQuery query) {
+        String keyword = query.getKeyword();
+        if (keyword == null) {
+            return filterPredicate(query);
+        }
+        Predicate<Equipment> predicate =
+            equipment -> EquipmentSearchIndex.matches(equipment, keyword);
+        return predicate.and(filterPredicate(query));
+    }
+    
+    private Predicate<Equipment> filterPredicate(EquipmentQuery query) {
+        Predicate<Equipment> predicate = equipment -> true;
         
         String groupName = query.getGroup();
         if (groupName != null) {
@@ -0,0 +1,175 @@
+package run.halo.equipments.service.impl;
+
+import static run.halo.app.extension.Unstructured.OBJECT_MAPPER;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import run.halo.app.extension.AbstractExtension;
+import run.halo.app.extension.GroupVersionKind;
+import run.halo.app.extension.MetadataOperator;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.EquipmentImportResult;
+import run.halo.equipments.EquipmentSorter;
+import run.halo.equipments.finders.impl.DefaultOrder;
+import run.halo.equipments.index.EquipmentSortIndex;
+import run.halo.equipments.reconciler.EquipmentReconciler;
+import run.halo.equipments.service.EquipmentTransferService;
+
+/**
+ * Service implementation for {@link EquipmentTransferService}.
+ *
+ * <p>Both directions are streamed element by element. Imported lines are written in batches
+ * of {@link #BATCH_SIZE} with at most {@link #CONCURRENCY} writes in flight, and the next
+ * batch is only requested from the input when the previous one is done, so memory does not
+ * grow with the size of the input.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Component
+public class EquipmentTransferServiceImpl implements EquipmentTransferService {
+
+    static final int BATCH_SIZE = 100;
+
+    static final int CONCURRENCY = 4;
+
+    private static final GroupVersionKind EQUIPMENT_GVK =
+        GroupVersionKind.fromExtension(Equipment.class);
+
+    private static final GroupVersionKind GROUP_GVK =
+        GroupVersionKind.fromExtension(EquipmentGroup.class);
+
+    private final ReactiveExtensionClient client;
+
+    private final EquipmentSortIndex sortIndex;
+
+    public EquipmentTransferServiceImpl(ReactiveExtensionClient client,
+        EquipmentSortIndex sortIndex) {
+        this.client = client;
+        this.sortIndex = sortIndex;
+    }
+
+    @Override
+    public Flux<JsonNode> exportAll() {
+        Flux<EquipmentGroup> groups = client.list(EquipmentGroup.class,
+            group -> group.getMetadata().getDeletionTimestamp() == null, null)
+            .collectList()
+            .doOnNext(DefaultOrder::sortGroups)
+            .flatMapIterable(Function.identity());
+        Flux<Equipment> equipments = Flux.defer(() -> {
+            if (sortIndex.isReady()) {
+                // the index is already resident, iterate it instead of loading a copy
+                return Flux.fromIterable(sortIndex.list(EquipmentSorter.CREATE_TIME, true));
+            }
+            return client.list(Equipment.class, null,
+                EquipmentSorter.from(EquipmentSorter.CREATE_TIME, true));
+        }).filter(equipment -> !equipment.isDeleted());
+        return Flux.concat(groups, equipments).map(OBJECT_MAPPER::valueToTree);
+    }
+
+    @Override
+    public Flux<EquipmentImportResult> importAll(Flux<String> lines) {
+        return lines.index()
+            .filter(line -> StringUtils.isNotBlank(line.getT2()))
+            .buffer(BATCH_SIZE)
+            .concatMap(batch -> Flux.fromIterable(batch)
+                .flatMapSequential(this::importLine, CONCURRENCY), 1);
+    }
+
+    private Mono<EquipmentImportResult> importLine(Tuple2<Long, String> indexedLine) {
+        long line = indexedLine.getT1() + 1;
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(indexedLine.getT2());
+        } catch (JsonProcessingException e) {
+            return Mono.just(EquipmentImportResult.failed(line, null, null,
+                "Malformed JSON: " + e.getOriginalMessage()));
+        }
+        String apiVersion = node.path("apiVersion").asText(null);
+        String kind = node.path("kind").asText(null);
+        String name = node.path("metadata").path("name").asText(null);
+        if (StringUtils.isBlank(name)) {
+            return Mono.just(EquipmentImportResult.failed(line, kind, null,
+                "metadata.name is required."));
+        }
+        if (isKind(EQUIPMENT_GVK, apiVersion, kind)) {
+            return upsert(line, node, Equipment.class,
+                (existing, incoming) -> existing.setSpec(incoming.getSpec()));
+        }
+        if (isKind(GROUP_GVK, apiVersion, kind)) {
+            return upsert(line, node, EquipmentGroup.class,
+                (existing, incoming) -> existing.setSpec(incoming.getSpec()));
+        }
+        return Mono.just(EquipmentImportResult.failed(line, kind, name,
+            "Unsupported kind " + apiVersion + "/" + kind + "."));
+    }
+
+    private <E extends AbstractExtension> Mono<EquipmentImportResult> upsert(long line,
+        JsonNode node, Class<E> type, BiConsumer<E, E> mergeSpec) {
+        String kind = node.path("kind").asText();
+        String name = node.path("metadata").path("name").asText();
+        E incoming;
+        try {
+            incoming = OBJECT_MAPPER.treeToValue(node, type);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Mono.just(EquipmentImportResult.failed(line, kind, name, e.getMessage()));
+        }
+        if (incoming.getMetadata().getLabels() != null) {
+            // maintained by EquipmentReconciler from the current state
+            incoming.getMetadata().getLabels().remove(EquipmentReconciler.GROUP_NAME_LABEL);
+        }
+        return client.fetch(type, name)
+            .flatMap(existing -> {
+                if (existing.getMetadata().getDeletionTimestamp() != null) {
+                    return Mono.just(EquipmentImportResult.failed(line, kind, name,
+                        "The existing " + kind + " is being deleted."));
+                }
+                mergeSpec.accept(existing, incoming);
+                mergeMetadata(existing.getMetadata(), incoming.getMetadata());
+                return client.update(existing).thenReturn(new EquipmentImportResult(line,
+                    kind, name, EquipmentImportResult.Status.updated, null));
+            })
+            .switchIfEmpty(Mono.defer(() -> {
+                var metadata = incoming.getMetadata();
+                metadata.setVersion(null);
+                metadata.setCreationTimestamp(null);
+                metadata.setDeletionTimestamp(null);
+                metadata.setFinalizers(null);
+                return client.create(incoming).thenReturn(new EquipmentImportResult(line,
+                    kind, name, EquipmentImportResult.Status.created, null));
+            }))
+            .onErrorResume(e -> Mono.just(EquipmentImportResult.failed(line, kind, name,
+                e.getMessage())));
+    }
+
+    private static void mergeMetadata(MetadataOperator existing, MetadataOperator incoming) {
+        existing.setLabels(merge(existing.getLabels(), incoming.getLabels()));
+        existing.setAnnotations(merge(existing.getAnnotations(), incoming.getAnnotations()));
+    }
+
+    private static Map<String, String> merge(Map<String, String> existing,
+        Map<String, String> incoming) {
+        if (incoming == null || incoming.isEmpty()) {
+            return existing;
+        }
+        Map<String, String> merged = existing == null ? new HashMap<>() : existing;
+        merged.putAll(incoming);
+        return merged;
+    }
+
+    private static boolean isKind(GroupVersionKind gvk, String apiVersion, String kind) {
+        return StringUtils.equals(gvk.kind(), kind)
+            && StringUtils.equals(gvk.groupVersion().toString(), apiVersion);
+    }
+}
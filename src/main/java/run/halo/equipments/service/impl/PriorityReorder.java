@@ -0,0 +1,199 @@
+package run.halo.equipments.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.Extension;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.ReorderRequest;
+import run.halo.equipments.ReorderResult;
+
+/**
+ * Plans the priorities of a move within a list ordered by priority.
+ *
+ * <p>Priorities are kept {@value #GAP} apart, so that a moved item usually fits between its
+ * new neighbours and is the only one written. Only when the neighbours have no gap left,
+ * e.g. for lists whose priorities were the indexes, the whole list is spread out again and
+ * every item whose priority changes is written.
+ *
+ * <p>The neighbours of the request are an optimistic check of the list as the client saw
+ * it, a move between items that are no longer adjacent is rejected with a conflict.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Slf4j
+final class PriorityReorder<T extends Extension> {
+
+    static final int GAP = 1024;
+
+    private final Function<T, Integer> priority;
+
+    private final BiConsumer<T, Integer> priorityWriter;
+
+    PriorityReorder(Function<T, Integer> priority, BiConsumer<T, Integer> priorityWriter) {
+        this.priority = priority;
+        this.priorityWriter = priorityWriter;
+    }
+
+    /**
+     * Moves an item and assigns the new priorities to the items of the given list.
+     *
+     * @param ordered the whole list in default order, including the moved item
+     * @param request move
+     * @return the items to write, their new priorities are already assigned
+     */
+    Plan<T> move(List<T> ordered, ReorderRequest request) {
+        if (StringUtils.isBlank(request.getName())) {
+            throw new ServerWebInputException("The name of the moved item is required.");
+        }
+        T moved = null;
+        List<T> others = new ArrayList<>(ordered.size());
+        for (T item : ordered) {
+            if (name(item).equals(request.getName())) {
+                moved = item;
+            } else {
+                others.add(item);
+            }
+        }
+        if (moved == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "Not found: " + request.getName());
+        }
+        if (request.getVersion() != null
+            && !request.getVersion().equals(moved.getMetadata().getVersion())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                request.getName() + " has been changed since it was loaded.");
+        }
+        int position = position(others, request.getPrevious(), request.getNext());
+
+        // a missing priority sorts first, so a lower neighbour without one bounds nothing,
+        // while nothing fits before an upper neighbour without one
+        Long lower = position > 0 ? key(others.get(position - 1)) : null;
+        boolean bounded = position < others.size();
+        Long upper = bounded ? key(others.get(position)) : null;
+        if (!bounded || upper != null) {
+            Long current = key(moved);
+            if (current != null && (lower == null || lower < current)
+                && (upper == null || current < upper)) {
+                return new Plan<>(List.of(), false);
+            }
+            Long between = between(lower, upper);
+            if (between != null) {
+                priorityWriter.accept(moved, between.intValue());
+                return new Plan<>(List.of(moved), false);
+            }
+        }
+
+        List<T> reordered = new ArrayList<>(others);
+        reordered.add(position, moved);
+        int step = (int) Math.min(GAP, Integer.MAX_VALUE / (reordered.size() + 1L));
+        List<T> changed = new ArrayList<>();
+        for (int i = 0; i < reordered.size(); i++) {
+            T item = reordered.get(i);
+            int spread = (i + 1) * step;
+            if (!Objects.equals(priority.apply(item), spread)) {
+                priorityWriter.accept(item, spread);
+                changed.add(item);
+            }
+        }
+        return new Plan<>(changed, true);
+    }
+
+    private int position(List<T> others, @Nullable String previous, @Nullable String next) {
+        if (previous != null && previous.equals(next)) {
+            throw new ServerWebInputException("previous and next must differ.");
+        }
+        int position = previous == null ? 0 : indexOf(others, previous) + 1;
+        int nextIndex = next == null ? others.size() : indexOf(others, next);
+        if (position != nextIndex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "The list has been changed, " + previous + " and " + next
+                    + " are not adjacent.");
+        }
+        return position;
+    }
+
+    private int indexOf(List<T> others, String name) {
+        for (int i = 0; i < others.size(); i++) {
+            if (name(others.get(i)).equals(name)) {
+                return i;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+            "The list has been changed, " + name + " is no longer in it.");
+    }
+
+    /**
+     * Gets a priority strictly between the bounds, null if there is none.
+     */
+    @Nullable
+    private static Long between(@Nullable Long lower, @Nullable Long upper) {
+        if (lower == null && upper == null) {
+            return (long) GAP;
+        }
+        if (lower == null) {
+            // stay non negative like the priorities entered in the console
+            long candidate = upper - GAP >= 0 ? upper - GAP : upper / 2;
+            return candidate < upper ? candidate : null;
+        }
+        if (upper == null) {
+            long candidate = lower + GAP;
+            return candidate <= Integer.MAX_VALUE ? candidate : null;
+        }
+        return upper - lower >= 2 ? lower + (upper - lower) / 2 : null;
+    }
+
+    /**
+     * Writes the items of a plan one by one, each update is checked against the version the
+     * item was listed with.
+     *
+     * <p>Writing stops at the first failed update. The items written before it keep their
+     * new priorities and are logged with the failure, a retried move lists them again and
+     * leaves those already in place alone.
+     *
+     * @param plan plan of {@link #move(List, ReorderRequest)}
+     * @param client extension client
+     * @return the written priorities
+     */
+    Mono<ReorderResult> write(Plan<T> plan, ReactiveExtensionClient client) {
+        return Mono.defer(() -> {
+            List<ReorderResult.Entry> written = new ArrayList<>(plan.changed().size());
+            return Flux.fromIterable(plan.changed())
+                .concatMap(client::update)
+                .map(updated -> new ReorderResult.Entry(name(updated),
+                    priority.apply(updated), updated.getMetadata().getVersion()))
+                .doOnNext(written::add)
+                .then(Mono.fromSupplier(() -> new ReorderResult(plan.rebalanced(), written)))
+                .doOnError(e -> log.warn("Reorder stopped after writing {} of {} items: {}.",
+                    written.size(), plan.changed().size(),
+                    written.stream().map(ReorderResult.Entry::getName).toList(), e));
+        });
+    }
+
+    @Nullable
+    private Long key(T item) {
+        Integer value = priority.apply(item);
+        return value == null ? null : value.longValue();
+    }
+
+    private static String name(Extension extension) {
+        return extension.getMetadata().getName();
+    }
+
+    /**
+     * Items to write and whether the whole list was spread out.
+     */
+    record Plan<T>(List<T> changed, boolean rebalanced) {
+    }
+}
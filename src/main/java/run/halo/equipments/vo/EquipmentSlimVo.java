@@ -0,0 +1,46 @@
+package run.halo.equipments.vo;
+
+import lombok.Builder;
+import lombok.Value;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.cover.CoverVariants;
+
+/**
+ * A slim {@link EquipmentVo} carrying only what lists and widgets render, without
+ * labels, annotations and the rest of the metadata.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+@Value
+@Builder
+public class EquipmentSlimVo {
+
+    String name;
+
+    String displayName;
+
+    String url;
+
+    String cover;
+
+    /**
+     * A <code>srcset</code> of resized covers, null if the cover is not a local attachment.
+     */
+    String coverSrcset;
+
+    public static EquipmentSlimVo from(Equipment equipment) {
+        var spec = equipment.getSpec();
+        String name = equipment.getMetadata().getName();
+        if (spec == null) {
+            return EquipmentSlimVo.builder().name(name).build();
+        }
+        return EquipmentSlimVo.builder()
+            .name(name)
+            .displayName(spec.getDisplayName())
+            .url(spec.getUrl())
+            .cover(spec.getCover())
+            .coverSrcset(CoverVariants.of(equipment).srcset())
+            .build();
+    }
+}
@@ -1,10 +1,12 @@
 package run.halo.equipments.vo;
 
+import java.util.Map;
 import lombok.Builder;
 import lombok.Value;
 import run.halo.app.extension.MetadataOperator;
 import run.halo.app.theme.finders.vo.ExtensionVoOperator;
 import run.halo.equipments.Equipment;
+import run.halo.equipments.cover.CoverVariants;
 
 /**
  * @author LIlGG
@@ -17,10 +19,29 @@ public class EquipmentVo implements ExtensionVoOperator {
     
     Equipment.EquipmentSpec spec;
     
+    /**
+     * Probed metadata of the cover, null until the current cover has been probed.
+     */
+    Equipment.CoverStatus cover;
+    
+    /**
+     * Urls of resized covers by width, empty if the cover is not a local attachment.
+     */
+    Map<Integer, String> coverVariants;
+    
+    /**
+     * A <code>srcset</code> of {@link #coverVariants}, null if there are none.
+     */
+    String coverSrcset;
+    
     public static EquipmentVo from(Equipment equipment) {
+        CoverVariants.Urls coverUrls = CoverVariants.of(equipment);
         return EquipmentVo.builder()
             .metadata(equipment.getMetadata())
             .spec(equipment.getSpec())
+            .cover(CoverVariants.probed(equipment))
+            .coverVariants(coverUrls.variants())
+            .coverSrcset(coverUrls.srcset())
             .build();
     }
 }
@@ -0,0 +1,188 @@
+package run.halo.equipments.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.Equipment;
+
+/**
+ * Tests the net-change and reset rules of {@link EquipmentChangeFeed} for subscribers that
+ * fall behind or resume.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+class EquipmentChangeFeedTest {
+
+    private EquipmentChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new EquipmentChangeFeed(mock(ReactiveExtensionClient.class));
+        feed.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void createdThenDeletedCancelsOut() {
+        Collector collector = subscribe(null, 0);
+
+        feed.publish(ChangeEvent.Type.CREATED, equipment("a", 1));
+        feed.publish(ChangeEvent.Type.DELETED, equipment("a", 2));
+        feed.publish(ChangeEvent.Type.UPDATED, equipment("b", 3));
+        collector.request(10);
+
+        assertThat(collector.events).extracting(ChangeEvent::type, ChangeEvent::name)
+            .containsExactly(tuple(ChangeEvent.Type.UPDATED, "b"));
+    }
+
+    @Test
+    void deletedThenCreatedBecomesUpdated() {
+        Collector collector = subscribe(null, 0);
+
+        feed.publish(ChangeEvent.Type.DELETED, equipment("a", 1));
+        Equipment recreated = equipment("a", 2);
+        feed.publish(ChangeEvent.Type.CREATED, recreated);
+        collector.request(10);
+
+        assertThat(collector.events).hasSize(1);
+        ChangeEvent event = collector.events.get(0);
+        assertThat(event.type()).isEqualTo(ChangeEvent.Type.UPDATED);
+        assertThat(event.sequence()).isEqualTo(2);
+        assertThat(event.object()).isSameAs(recreated);
+    }
+
+    @Test
+    void createdThenUpdatedStaysCreated() {
+        Collector collector = subscribe(null, 0);
+
+        feed.publish(ChangeEvent.Type.CREATED, equipment("a", 1));
+        Equipment updated = equipment("a", 2);
+        feed.publish(ChangeEvent.Type.UPDATED, updated);
+        collector.request(10);
+
+        assertThat(collector.events).hasSize(1);
+        assertThat(collector.events.get(0).type()).isEqualTo(ChangeEvent.Type.CREATED);
+        assertThat(collector.events.get(0).object()).isSameAs(updated);
+    }
+
+    @Test
+    void overflowProducesReset() {
+        Collector collector = subscribe(null, 0);
+
+        int published = EquipmentChangeFeed.BUFFER_SIZE + 1;
+        for (int i = 1; i <= published; i++) {
+            feed.publish(ChangeEvent.Type.CREATED, equipment("e" + i, 1));
+        }
+        // the reset covers changes made until it is delivered
+        feed.publish(ChangeEvent.Type.UPDATED, equipment("late", 1));
+        collector.request(10);
+        feed.publish(ChangeEvent.Type.UPDATED, equipment("after", 1));
+
+        assertThat(collector.events).extracting(ChangeEvent::type)
+            .containsExactly(ChangeEvent.Type.RESET, ChangeEvent.Type.UPDATED);
+        assertThat(collector.events.get(0).sequence()).isEqualTo(published + 1);
+        assertThat(collector.events.get(1).name()).isEqualTo("after");
+    }
+
+    @Test
+    void resumingWithinHistoryReplaysLaterChanges() {
+        for (int i = 1; i <= 5; i++) {
+            feed.publish(ChangeEvent.Type.CREATED, equipment("e" + i, 1));
+        }
+
+        Collector collector = subscribe(feed.epoch(), 3);
+        collector.request(10);
+
+        assertThat(collector.events).extracting(ChangeEvent::name)
+            .containsExactly("e4", "e5");
+    }
+
+    @Test
+    void resumingFromPositionNoLongerKeptProducesReset() {
+        int published = EquipmentChangeFeed.HISTORY_SIZE + 5;
+        for (int i = 1; i <= published; i++) {
+            feed.publish(ChangeEvent.Type.CREATED, equipment("e" + i, 1));
+        }
+
+        Collector collector = subscribe(feed.epoch(), 1);
+        collector.request(10);
+
+        assertThat(collector.events).extracting(ChangeEvent::type)
+            .containsExactly(ChangeEvent.Type.RESET);
+        assertThat(collector.events.get(0).sequence()).isEqualTo(published);
+    }
+
+    @Test
+    void resumingFromAnotherEpochProducesReset() {
+        feed.publish(ChangeEvent.Type.CREATED, equipment("a", 1));
+
+        Collector collector = subscribe("previous", 1);
+        collector.request(10);
+
+        assertThat(collector.events).extracting(ChangeEvent::type)
+            .containsExactly(ChangeEvent.Type.RESET);
+    }
+
+    @Test
+    void stopCompletesSubscribers() {
+        Collector collector = subscribe(null, 0);
+
+        feed.stop();
+
+        assertThat(collector.completed).isTrue();
+    }
+
+    private Collector subscribe(String epoch, long after) {
+        Collector collector = new Collector();
+        feed.subscribe(epoch, after).subscribe(collector);
+        return collector;
+    }
+
+    private static Equipment equipment(String name, long version) {
+        Equipment equipment = new Equipment();
+        Metadata metadata = new Metadata();
+        metadata.setName(name);
+        metadata.setVersion(version);
+        equipment.setMetadata(metadata);
+        return equipment;
+    }
+
+    /**
+     * Requests nothing until asked to, so that changes pile up as for a slow client.
+     */
+    private static class Collector extends BaseSubscriber<ChangeEvent> {
+
+        private final List<ChangeEvent> events = new ArrayList<>();
+
+        private boolean completed;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(ChangeEvent value) {
+            events.add(value);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
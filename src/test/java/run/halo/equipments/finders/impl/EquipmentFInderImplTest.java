@@ -0,0 +1,226 @@
+package run.halo.equipments.finders.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.comparator.Comparators;
+import reactor.core.publisher.Flux;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.Equipment;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.index.EquipmentIndex;
+import run.halo.equipments.index.EquipmentStore;
+import run.halo.equipments.metrics.EquipmentMetrics;
+import run.halo.equipments.vo.EquipmentGroupVo;
+import run.halo.equipments.vo.EquipmentVo;
+
+/**
+ * Tests that {@link EquipmentFInderImpl#groupBy()} partitions equipments in a single pass
+ * into the same order as listing every group with its own query did.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+class EquipmentFInderImplTest {
+
+    private static final Instant NOW = Instant.parse("2023-08-01T00:00:00Z");
+
+    private final List<EquipmentGroup> groups = new ArrayList<>();
+
+    private final List<Equipment> equipments = new ArrayList<>();
+
+    private ReactiveExtensionClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(ReactiveExtensionClient.class);
+        when(client.list(eq(EquipmentGroup.class), any(), any()))
+            .thenAnswer(invocation -> list(groups, invocation.getArgument(1),
+                invocation.getArgument(2)));
+        when(client.list(eq(Equipment.class), any(), any()))
+            .thenAnswer(invocation -> list(equipments, invocation.getArgument(1),
+                invocation.getArgument(2)));
+
+        groups.add(group("group-b", 1, NOW));
+        groups.add(group("group-a", 1, NOW));
+        groups.add(group("group-empty", null, NOW.plusSeconds(5)));
+        groups.add(group("group-c", 0, NOW.plusSeconds(10)));
+
+        // ties on priority and creation time are ordered by name
+        equipments.add(equipment("tie-b", "group-a", 1, NOW));
+        equipments.add(equipment("tie-a", "group-a", 1, NOW));
+        equipments.add(equipment("tie-c", "group-a", 1, NOW));
+        // null priorities sort before every priority
+        equipments.add(equipment("null-old", "group-a", null, NOW));
+        equipments.add(equipment("null-new", "group-a", null, NOW.plusSeconds(1)));
+        equipments.add(equipment("low", "group-a", -1, NOW));
+        // newest first within a priority, down to the nanosecond
+        equipments.add(equipment("older", "group-b", 2, NOW));
+        equipments.add(equipment("newer", "group-b", 2, NOW.plusNanos(1)));
+        equipments.add(equipment("first", "group-b", 0, NOW.minusSeconds(60)));
+        equipments.add(equipment("only", "group-c", null, NOW));
+        // neither listed by a group
+        equipments.add(equipment("ungrouped", null, 0, NOW));
+        equipments.add(equipment("orphan", "group-missing", 0, NOW));
+    }
+
+    @Test
+    void groupByMatchesPerGroupListingWithoutIndex() {
+        EquipmentFInderImpl finder = finder(new EquipmentIndex(new EquipmentStore(client)));
+
+        assertMatchesPerGroupListing(finder.groupBy().collectList().block());
+    }
+
+    @Test
+    void groupByMatchesPerGroupListingWithIndex() {
+        EquipmentStore store = new EquipmentStore(client);
+        EquipmentIndex index = new EquipmentIndex(store);
+        store.start();
+        assertThat(index.isReady()).isTrue();
+
+        assertMatchesPerGroupListing(finder(index).groupBy().collectList().block());
+        store.stop();
+    }
+
+    @Test
+    void groupByKeepsTheExpectedOrder() {
+        EquipmentFInderImpl finder = finder(new EquipmentIndex(new EquipmentStore(client)));
+
+        Map<String, List<String>> actual = names(finder.groupBy().collectList().block());
+
+        assertThat(actual.keySet())
+            .containsExactly("group-empty", "group-c", "group-a", "group-b");
+        assertThat(actual.get("group-empty")).isEmpty();
+        assertThat(actual.get("group-c")).containsExactly("only");
+        assertThat(actual.get("group-a"))
+            .containsExactly("null-new", "null-old", "low", "tie-a", "tie-b", "tie-c");
+        assertThat(actual.get("group-b")).containsExactly("first", "newer", "older");
+    }
+
+    private void assertMatchesPerGroupListing(List<EquipmentGroupVo> groupVos) {
+        Map<String, List<String>> expected = perGroupListing();
+
+        assertThat(names(groupVos)).containsExactlyEntriesOf(expected);
+        for (EquipmentGroupVo groupVo : groupVos) {
+            assertThat(groupVo.getStatus().getEquipmentCount())
+                .isEqualTo(expected.get(groupVo.getMetadata().getName()).size());
+        }
+    }
+
+    /**
+     * Lists every group with its own query, the way groupBy did before equipments were
+     * partitioned in a single pass.
+     */
+    private Map<String, List<String>> perGroupListing() {
+        Map<String, List<String>> listing = new LinkedHashMap<>();
+        List<EquipmentGroup> sortedGroups = new ArrayList<>(groups);
+        sortedGroups.sort(perGroupGroupComparator());
+        for (EquipmentGroup group : sortedGroups) {
+            String groupName = group.getMetadata().getName();
+            List<String> names = new ArrayList<>();
+            equipments.stream()
+                .filter(equipment -> StringUtils.equals(equipment.getSpec().getGroupName(),
+                    groupName))
+                .sorted(perGroupEquipmentComparator())
+                .forEach(equipment -> names.add(equipment.getMetadata().getName()));
+            listing.put(groupName, names);
+        }
+        return listing;
+    }
+
+    private static Map<String, List<String>> names(List<EquipmentGroupVo> groupVos) {
+        Map<String, List<String>> names = new LinkedHashMap<>();
+        for (EquipmentGroupVo groupVo : groupVos) {
+            List<String> equipmentNames = new ArrayList<>();
+            for (EquipmentVo equipmentVo : groupVo.getEquipments()) {
+                equipmentNames.add(equipmentVo.getMetadata().getName());
+            }
+            names.put(groupVo.getMetadata().getName(), equipmentNames);
+        }
+        return names;
+    }
+
+    private EquipmentFInderImpl finder(EquipmentIndex index) {
+        return new EquipmentFInderImpl(client, index, new EquipmentMetrics());
+    }
+
+    private static Comparator<EquipmentGroup> perGroupGroupComparator() {
+        Function<EquipmentGroup, Integer> priority = group -> group.getSpec().getPriority();
+        Function<EquipmentGroup, Instant> createTime =
+            group -> group.getMetadata().getCreationTimestamp();
+        Function<EquipmentGroup, String> name = group -> group.getMetadata().getName();
+        return Comparator.comparing(priority, Comparators.nullsLow())
+            .thenComparing(createTime)
+            .thenComparing(name);
+    }
+
+    private static Comparator<Equipment> perGroupEquipmentComparator() {
+        Function<Equipment, Integer> priority = equipment -> equipment.getSpec().getPriority();
+        Function<Equipment, Instant> createTime =
+            equipment -> equipment.getMetadata().getCreationTimestamp();
+        Function<Equipment, String> name = equipment -> equipment.getMetadata().getName();
+        return Comparator.comparing(priority, Comparators.nullsLow())
+            .thenComparing(Comparator.comparing(createTime).reversed())
+            .thenComparing(name);
+    }
+
+    private static <E> Flux<E> list(List<E> extensions, Predicate<E> predicate,
+        Comparator<E> comparator) {
+        List<E> listed = new ArrayList<>();
+        for (E extension : extensions) {
+            if (predicate == null || predicate.test(extension)) {
+                listed.add(extension);
+            }
+        }
+        if (comparator != null) {
+            listed.sort(comparator);
+        }
+        return Flux.fromIterable(listed);
+    }
+
+    private static EquipmentGroup group(String name, Integer priority, Instant createTime) {
+        EquipmentGroup group = new EquipmentGroup();
+        group.setMetadata(metadata(name, createTime));
+        EquipmentGroup.EquipmentGroupSpec spec = new EquipmentGroup.EquipmentGroupSpec();
+        spec.setDisplayName(name);
+        spec.setPriority(priority);
+        group.setSpec(spec);
+        return group;
+    }
+
+    private static Equipment equipment(String name, String groupName, Integer priority,
+        Instant createTime) {
+        Equipment equipment = new Equipment();
+        equipment.setMetadata(metadata(name, createTime));
+        Equipment.EquipmentSpec spec = new Equipment.EquipmentSpec();
+        spec.setDisplayName(name);
+        spec.setUrl("https://example.com/" + name);
+        spec.setGroupName(groupName);
+        spec.setPriority(priority);
+        equipment.setSpec(spec);
+        return equipment;
+    }
+
+    private static Metadata metadata(String name, Instant createTime) {
+        Metadata metadata = new Metadata();
+        metadata.setName(name);
+        metadata.setCreationTimestamp(createTime);
+        metadata.setVersion(1L);
+        return metadata;
+    }
+}
@@ -0,0 +1,213 @@
+package run.halo.equipments.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import run.halo.app.extension.Metadata;
+import run.halo.app.extension.ReactiveExtensionClient;
+import run.halo.equipments.EquipmentGroup;
+import run.halo.equipments.ReorderRequest;
+import run.halo.equipments.ReorderResult;
+
+/**
+ * Tests the priorities {@link PriorityReorder} plans for a move and how it writes them.
+ *
+ * @author LIlGG
+ * @since 1.2.0
+ */
+class PriorityReorderTest {
+
+    private static final int GAP = PriorityReorder.GAP;
+
+    private final PriorityReorder<EquipmentGroup> reorder = new PriorityReorder<>(
+        group -> group.getSpec().getPriority(),
+        (group, priority) -> group.getSpec().setPriority(priority));
+
+    @Test
+    void movingBetweenSpacedNeighboursWritesOnlyTheMovedItem() {
+        List<EquipmentGroup> groups = List.of(group("a", GAP), group("b", 2 * GAP),
+            group("c", 3 * GAP));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("c", "a", "b"));
+
+        assertThat(plan.rebalanced()).isFalse();
+        assertThat(plan.changed()).extracting(PriorityReorderTest::name)
+            .containsExactly("c");
+        assertThat(priority(groups, "c")).isEqualTo(GAP + GAP / 2);
+    }
+
+    @Test
+    void movingToWhereTheItemAlreadyIsWritesNothing() {
+        List<EquipmentGroup> groups = List.of(group("a", GAP), group("b", 2 * GAP),
+            group("c", 3 * GAP));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("b", "a", "c"));
+
+        assertThat(plan.rebalanced()).isFalse();
+        assertThat(plan.changed()).isEmpty();
+        assertThat(priority(groups, "b")).isEqualTo(2 * GAP);
+    }
+
+    @Test
+    void writingAnEmptyPlanUpdatesNothing() {
+        ReactiveExtensionClient client = mock(ReactiveExtensionClient.class);
+
+        ReorderResult result = reorder.write(new PriorityReorder.Plan<>(List.of(), false),
+            client).block();
+
+        assertThat(result).isNotNull();
+        assertThat(result.isRebalanced()).isFalse();
+        assertThat(result.getUpdated()).isEmpty();
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void upperNeighbourWithoutPriorityRebalances() {
+        List<EquipmentGroup> groups = List.of(group("a", null), group("b", null),
+            group("c", 5));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("c", "a", "b"));
+
+        assertThat(plan.rebalanced()).isTrue();
+        assertThat(groups).extracting(PriorityReorderTest::name,
+                group -> group.getSpec().getPriority())
+            .containsExactlyInAnyOrder(tuple("a", GAP), tuple("c", 2 * GAP),
+                tuple("b", 3 * GAP));
+    }
+
+    @Test
+    void upperNeighbourWithZeroPriorityRebalances() {
+        List<EquipmentGroup> groups = List.of(group("a", 0), group("b", GAP));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("b", null, "a"));
+
+        // nothing non negative fits before zero
+        assertThat(plan.rebalanced()).isTrue();
+        assertThat(plan.changed()).extracting(PriorityReorderTest::name)
+            .containsExactly("a");
+        assertThat(priority(groups, "b")).isEqualTo(GAP);
+        assertThat(priority(groups, "a")).isEqualTo(2 * GAP);
+    }
+
+    @Test
+    void movingToTheTopStaysNonNegative() {
+        List<EquipmentGroup> groups = List.of(group("a", 10), group("b", GAP));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("b", null, "a"));
+
+        assertThat(plan.rebalanced()).isFalse();
+        assertThat(priority(groups, "b")).isEqualTo(5);
+    }
+
+    @Test
+    void movingPastTheLargestPriorityRebalancesInsteadOfOverflowing() {
+        List<EquipmentGroup> groups = List.of(group("a", 5),
+            group("b", Integer.MAX_VALUE - 10));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("a", "b", null));
+
+        assertThat(plan.rebalanced()).isTrue();
+        assertThat(priority(groups, "b")).isEqualTo(GAP);
+        assertThat(priority(groups, "a")).isEqualTo(2 * GAP);
+    }
+
+    @Test
+    void movingBetweenTheLargestPrioritiesDoesNotOverflow() {
+        List<EquipmentGroup> groups = List.of(group("a", Integer.MAX_VALUE - 2),
+            group("b", Integer.MAX_VALUE), group("c", 5));
+
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("c", "a", "b"));
+
+        assertThat(plan.rebalanced()).isFalse();
+        assertThat(priority(groups, "c")).isEqualTo(Integer.MAX_VALUE - 1);
+    }
+
+    @Test
+    void neighboursNoLongerAdjacentAreRejected() {
+        List<EquipmentGroup> groups = List.of(group("a", GAP), group("b", 2 * GAP),
+            group("c", 3 * GAP), group("d", 4 * GAP));
+
+        assertThatThrownBy(() -> reorder.move(groups, request("d", "a", "c")))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasFieldOrPropertyWithValue("statusCode", HttpStatus.CONFLICT);
+        assertThat(priority(groups, "d")).isEqualTo(4 * GAP);
+    }
+
+    @Test
+    void neighbourNoLongerInTheListIsRejected() {
+        List<EquipmentGroup> groups = List.of(group("a", GAP), group("b", 2 * GAP));
+
+        assertThatThrownBy(() -> reorder.move(groups, request("b", "gone", null)))
+            .isInstanceOf(ResponseStatusException.class)
+            .hasFieldOrPropertyWithValue("statusCode", HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void failedUpdateStopsWritingTheRest() {
+        List<EquipmentGroup> groups = List.of(group("a", 0), group("b", 1), group("c", 2));
+        PriorityReorder.Plan<EquipmentGroup> plan = reorder.move(groups,
+            request("c", null, "a"));
+        assertThat(plan.changed()).hasSize(3);
+
+        ReactiveExtensionClient client = mock(ReactiveExtensionClient.class);
+        IllegalStateException failure = new IllegalStateException("conflict");
+        when(client.update(any(EquipmentGroup.class)))
+            .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)))
+            .thenReturn(Mono.error(failure));
+
+        assertThatThrownBy(() -> reorder.write(plan, client).block()).isSameAs(failure);
+        verify(client, times(2)).update(any(EquipmentGroup.class));
+    }
+
+    private static ReorderRequest request(String name, String previous, String next) {
+        ReorderRequest request = new ReorderRequest();
+        request.setName(name);
+        request.setPrevious(previous);
+        request.setNext(next);
+        return request;
+    }
+
+    private static Integer priority(List<EquipmentGroup> groups, String name) {
+        return groups.stream()
+            .filter(group -> name(group).equals(name))
+            .findFirst()
+            .map(group -> group.getSpec().getPriority())
+            .orElseThrow();
+    }
+
+    private static String name(EquipmentGroup group) {
+        return group.getMetadata().getName();
+    }
+
+    private static EquipmentGroup group(String name, Integer priority) {
+        EquipmentGroup group = new EquipmentGroup();
+        Metadata metadata = new Metadata();
+        metadata.setName(name);
+        metadata.setVersion(1L);
+        group.setMetadata(metadata);
+        EquipmentGroup.EquipmentGroupSpec spec = new EquipmentGroup.EquipmentGroupSpec();
+        spec.setDisplayName(name);
+        spec.setPriority(priority);
+        group.setSpec(spec);
+        return group;
+    }
+}